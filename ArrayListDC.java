@@ -1,3 +1,16 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Author: Dino Cajic
  *
@@ -14,13 +27,22 @@
  * 5). check to see if the arrayList is empty: boolean isEmpty()
  * 6). check to see if an object exists within the array: boolean isIn(Object ob)
  * 7). get the index location of a specific object: int find(Object n)
- * 7). remove the object from the array: void remove(Object n)
+ * 8). remove the object from the array: void remove(Object n)
+ * 9). grow the array once before a bulk load: void ensureCapacity(int n)
+ * 10). release the unused slots: void trimToSize()
+ * 11). choose how the array grows: void setGrowthPolicy(GrowthPolicy policy)
+ * 12). add or remove many Objects in one pass: addAll(), removeAll(), retainAll(), removeIf()
+ * 13). visit the elements: iterator(), forEach(), spliterator(), stream(), parallelStream()
+ * 14). count reallocations, shifts and searches: ArrayListDCStats enableStats()
+ * 15). take a read only view in O(1): ArrayListDCSnapshot snapshot()
  *
  * To use the class: Instantiate the ArrayListDC class and either pass an initial
  * size or leave blank for a default size of 10. Use the methods provided to
- * store/remove elements from ArrayListDC class.
+ * store/remove elements from ArrayListDC class. Pass true as the indexed argument
+ * to the constructor to keep a hash index of the Objects, so that find() and
+ * isIn() take O(1) expected time instead of scanning the whole array.
  */
-public class ArrayListDC {
+public class ArrayListDC implements Iterable<Object> {
 
     /**
      * Stores the objects in an array
@@ -32,6 +54,32 @@ public class ArrayListDC {
      */
     private int elementsInArray;
 
+    /**
+     * Maps each Object to the index of its first occurrence; null if the list is not indexed
+     */
+    private FirstIndexMap index;
+
+    /**
+     * Decides the new capacity every time the arrayList array is full
+     */
+    private GrowthPolicy growthPolicy = GrowthPolicy.DOUBLE;
+
+    /**
+     * Counts the changes to the elements so that iterators can detect them and fail fast
+     */
+    private int modCount;
+
+    /**
+     * Counts reallocations, shifts and searches; null until enableStats() is called
+     */
+    private ArrayListDCStats stats;
+
+    /**
+     * True when a snapshot reads the arrayList array, so its elements must be copied before
+     * any of them is overwritten
+     */
+    private boolean shared;
+
     /**
      * The default constructor that creates an arrayList with a default size of 10.
      * Precondition: Must instantiate the class without passing a value.
@@ -58,98 +106,194 @@ public class ArrayListDC {
         this.elementsInArray = 0;
     }
 
+    /**
+     * Constructor that allows an initial size to be passed to the array and turns on the
+     * hash index.
+     * Precondition: Parameter n must be larger than 0.
+     * Postcondition: Initializes the arrayList the same way as ArrayListDC(int n). If indexed
+     * is true, an open addressing hash map from each Object to the index of its first
+     * occurrence is created. Appending with add(Object x) updates the map in O(1). Inserting
+     * at an index or removing an Object shifts the positions stored in the map in place, and
+     * removeIf() refills the same table, so the map is never allocated again unless it grows.
+     * @param n       | The size of the arrayList array.
+     * @param indexed | True to keep the hash index.
+     */
+    public ArrayListDC(int n, boolean indexed) {
+        this(n);
+
+        if (indexed) {
+            this.index = new FirstIndexMap(n);
+        }
+    }
+
     /**
      * A method that allows you to place an Object at the end of the ArrayListDC.
      * Precondition: Must pass a parameter x of type Object.
      * Postcondition: The method checks to see if the array is full. if it is,
-     * a "double" argument is passed to the copyArray() method to double the arrayList's
-     * capacity. The Object x is added to the arrayList array. The size, elementsInArray,
+     * the grow() method increases the arrayList's capacity according to the growth
+     * policy. The Object x is added to the arrayList array. The size, elementsInArray,
      * is incremented by 1.
      * @param x | The object to be added to the arrayList array.
      */
     public void add(Object x) {
         if (checkIfArrayFull()) {
-            copyArray(0, "double");
+            grow(this.elementsInArray + 1);
+        }
+
+        if (this.index != null && x != null) {
+            this.index.putIfAbsent(x, this.elementsInArray);
         }
 
         this.arrayList[this.elementsInArray] = x;
         this.elementsInArray++;
+        this.modCount++;
     }
 
     /**
      * A method that allows you to place a value at a given location.
-     * Precondition: Must pass the index location that's within the
-     * arrayList array bounds; Also must pass the Object to insert
-     * at a given index location.
-     * Postcondition: Checks to see if the array arrayList is full.
-     * If it is, the capacity is doubled in size. The method checks
-     * to see if the index that was passed is out of bounds; if it
-     * is, a index out of bounds message is displayed and the
-     * program is terminated. A temp Object is created and stores
-     * the arrayList object at the given passed index. The arrayList
-     * at the passed index is assigned the value of Object x. A temp2
-     * object is declared to be used in the loop. The loop is created
-     * and cycles starting at the current index location to the
-     * arrayList length - 1 position. The temp2 variable is assigned
-     * the Object value of arrayList at i+1 position. The arrayList
-     * at i+1 position is assigned the value of temp. Then the temp
-     * variable is assigned the value of temp2. This ensures that the
-     * Objects passed the index value are stored in the array. After
-     * the loop, the copyArray() method is called. This compacts the
-     * array. i.e. if the capacity was 20, and the array has 10 elements,
-     * but the user decided to add the new Object at index 15, the
-     * copyArray() method would move the Object from index 15 to index 10.
-     * The elementsInArray data field is incremented by 1.
+     * Precondition: Must pass an index between 0 and size() inclusive;
+     * Also must pass the Object to insert at a given index location.
+     * Postcondition: Checks to see if the index that was passed is
+     * out of bounds; if it is, an IndexOutOfBoundsException is thrown
+     * and the list is not changed. Checks to see if the array arrayList
+     * is full. If it is, the capacity is increased by the growth policy.
+     * The elements from index up to the last element are shifted one
+     * position to the right in place with System.arraycopy(), so only
+     * the live elements are moved and no new array is allocated unless
+     * the capacity had to grow. The arrayList at the passed index is
+     * assigned the value of Object x and the elementsInArray data
+     * field is incremented by 1.
      * @param index | The position where the new Object should be added.
      * @param x     | The object that should be added to arrayList at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or greater than size()
      */
     public void add(int index, Object x) {
-        if (checkIfArrayFull()) {
-            copyArray(0, "double");
+        if (index < 0 || index > this.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.elementsInArray);
         }
 
-        if (index >= this.arrayList.length) {
-            System.out.println("The index is out of bounds");
-            System.exit(-1);
+        if (checkIfArrayFull()) {
+            grow(this.elementsInArray + 1);
         }
 
-        Object temp = this.arrayList[index];
-        arrayList[index] = x;
+        unshare();
+        System.arraycopy(this.arrayList, index, this.arrayList, index + 1, this.elementsInArray - index);
+
+        if (this.stats != null) {
+            this.stats.recordShift(this.elementsInArray - index);
+        }
 
-        Object temp2;
+        if (this.index != null) {
+            this.index.shift(index, 1);
 
-        // Invariant: index <= i < arrayList.length - 1
-        for (int i = index; i < this.arrayList.length - 1; i++) {
-            temp2 = arrayList[i + 1];
-            arrayList[i + 1] = temp;
-            temp = temp2;
+            if (x != null) {
+                this.index.putIfSmaller(x, index);
+            }
         }
 
-        copyArray(0, "");
+        this.arrayList[index] = x;
         this.elementsInArray++;
+        this.modCount++;
     }
 
     /**
      * Allows you to retrieve a value of the arrayList array from a given location
-     * Precondition: Must pass an index that's within array bounds.
-     * Postcondition: Checks to see if the index is within the arrayList bounds. If it's not,
-     * a message is printed to the user. If it is within bounds, the Object at the specific
-     * index location is returned.
-     * @param index    | The index location of the Object.
-     * @return element | The Object at the specific index.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() checks the index against the amount of elements,
+     * not the capacity, and throws an IndexOutOfBoundsException if it's not within bounds.
+     * The check is a JIT intrinsic, so get() stays small enough to be inlined. If the
+     * index is within bounds, the Object at the specific index location is returned.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
      */
     public Object get(int index) {
-        Object element = null;
+        return this.arrayList[Objects.checkIndex(index, this.elementsInArray)];
+    }
 
-        // Invariant: 0 <= index < arrayList.length
-        try {
-            element = this.arrayList[index];
-        } catch (ArrayIndexOutOfBoundsException e) {
-            System.out.println("The index that you specified is not within bounds.");
-            System.exit(-1);
+    /**
+     * Sets how the arrayList array grows when it's full.
+     * Precondition: Must pass a GrowthPolicy; i.e. GrowthPolicy.ONE_AND_A_HALF,
+     * GrowthPolicy.POWER_OF_TWO or GrowthPolicy.fixedChunk(1000).
+     * Postcondition: Every following growth of the arrayList array uses the policy. The
+     * default policy is GrowthPolicy.DOUBLE.
+     * @param policy | The growth policy to use.
+     */
+    public void setGrowthPolicy(GrowthPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("The growth policy must not be null.");
         }
 
-        return element;
+        this.growthPolicy = policy;
+    }
+
+    /**
+     * Makes sure that the arrayList array can hold at least n elements without growing.
+     * Precondition: Must pass the amount of elements that the list should be able to hold.
+     * Postcondition: If n is larger than the capacity, the arrayList array is grown once to
+     * at least n slots, so a bulk load of known size does not have to grow the array over
+     * and over again. Otherwise nothing happens.
+     * @param n | The amount of elements that the list should be able to hold.
+     */
+    public void ensureCapacity(int n) {
+        if (n > this.arrayList.length) {
+            grow(n);
+        }
+    }
+
+    /**
+     * Shrinks the arrayList array so that it has no unused slots.
+     * Precondition: The ArrayListDC object must be instantiated in the user program.
+     * Postcondition: If there are unused slots, the elements are copied into an array whose
+     * length is the amount of elements, releasing the memory of the unused slots. The array
+     * keeps at least one slot so that it can still grow.
+     */
+    public void trimToSize() {
+        int capacity = Math.max(this.elementsInArray, 1);
+
+        if (capacity < this.arrayList.length) {
+            copyArray(capacity);
+        }
+    }
+
+    /**
+     * Returns the amount of elements that the arrayList array can hold without growing.
+     * Precondition: The ArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns the length of the arrayList array.
+     * @return int
+     */
+    public int capacity() {
+        return this.arrayList.length;
+    }
+
+    /**
+     * Turns on the counting of reallocations, shifts and searches.
+     * Precondition: The ArrayListDC object must be instantiated in the user program.
+     * Postcondition: Creates the ArrayListDCStats of the list the first time it's called and
+     * returns it. Until this is called, recording a metric costs a single null check.
+     * @return ArrayListDCStats | The stats of the list.
+     */
+    public ArrayListDCStats enableStats() {
+        if (this.stats == null) {
+            this.stats = new ArrayListDCStats(this);
+        }
+
+        return this.stats;
+    }
+
+    /**
+     * Returns a read only view of the elements as they are now.
+     * Precondition: Must be synchronized with the threads that change the list, i.e. called
+     * under the same lock; the snapshot itself can then be read by any thread without one.
+     * Postcondition: The snapshot shares the arrayList array, so nothing is copied. The
+     * array is marked as shared: the next add(int index, Object x), remove() or removeIf()
+     * copies the elements into a new array before overwriting any of them. add(Object x)
+     * and addAll() only write past the last element and keep using the shared array.
+     * @return ArrayListDCSnapshot | The elements from location 0 to the last element.
+     */
+    public ArrayListDCSnapshot snapshot() {
+        this.shared = true;
+        return new ArrayListDCSnapshot(this.arrayList, this.elementsInArray);
     }
 
     /**
@@ -193,41 +337,353 @@ public class ArrayListDC {
     /**
      * Returns the location of first occurrence of an Object starting from location 0
      * Precondition: Must pass a parameter of type Object.
-     * Postcondition: Checks to see if the arrayList array contains the Object n. If
-     * it does, the position of the Object is returned. Otherwise, -1 is returned.
+     * Postcondition: If the list is indexed, the position of the Object is looked up in the
+     * hash map. Otherwise, checks to see if the
+     * elements in the arrayList array contain the Object n. If they do, the position of
+     * the Object is returned. Otherwise, -1 is returned.
      * @param n  | The Object that the method will search for in arrayList
      * @return i | The position of the Object n within the arrayList array
      */
     public int find (Object n) {
-        // Invariant: 0 <= i < arrayList.length
-        for (int i = 0; i < this.arrayList.length; i++) {
+        if (this.index != null) {
+            if (this.stats != null) {
+                this.stats.recordFind(1);
+            }
+
+            return this.index.get(n);
+        }
+
+        int i = 0;
+
+        // Invariant: 0 <= i < elementsInArray
+        for (; i < this.elementsInArray; i++) {
             if (n.equals(this.arrayList[i])) {
-                return i;
+                break;
             }
         }
 
-        return -1;
+        if (this.stats != null) {
+            this.stats.recordFind(Math.min(i + 1, this.elementsInArray));
+        }
+
+        return i < this.elementsInArray ? i : -1;
     }
 
     /**
      * Removes the first occurrence of an Object starting from location 0
      * Preconditon: Must pass the Object n as a parameter to be removed.
      * The Object n should be an element in the arrayList array.
-     * Postcondition: The method loops through each of the elements in the
-     * arrayList. If the Object exists in the arrayList array, the element
-     * at that particular index is set to null. The elementsInArray is
-     * decremented by 1. The copyArray() method is called to compact the
-     * array again. The method will exit when the first instance of the
-     * Object is found.
+     * Postcondition: The method uses find() to locate the Object in the
+     * arrayList. If the Object exists in the arrayList array, the elements
+     * after that particular index are shifted one position to the left in
+     * place with System.arraycopy(). The slot that used to hold the last
+     * element is set to null so that the Object can be garbage collected.
+     * The elementsInArray is decremented by 1. Only the first instance of
+     * the Object is removed. If the list is indexed, the positions after the
+     * removed Object are decremented in the hash map and the Object is mapped
+     * to its next occurrence, or removed from the map if there is none.
      * @param n | The Object to be removed from the arrayList array
      */
     public void remove (Object n) {
+        int i = find(n);
+
+        if (i < 0) {
+            return;
+        }
+
+        unshare();
+        System.arraycopy(this.arrayList, i + 1, this.arrayList, i, this.elementsInArray - i - 1);
+
+        if (this.stats != null) {
+            this.stats.recordShift(this.elementsInArray - i - 1);
+        }
+
+        this.elementsInArray--;
+        this.arrayList[this.elementsInArray] = null;
+        this.modCount++;
+
+        if (this.index != null) {
+            updateIndexAfterRemove(n, i);
+        }
+    }
+
+    /**
+     * Places every Object of an array at the end of the ArrayListDC.
+     * Precondition: Must pass an array of Objects.
+     * Postcondition: The arrayList array is grown at most once to fit all of the Objects.
+     * The Objects are copied after the last element with System.arraycopy() and
+     * elementsInArray is incremented by the length of the array.
+     * @param items | The Objects to be added to the arrayList array.
+     */
+    public void addAll(Object[] items) {
+        appendAll(items, items.length);
+    }
+
+    /**
+     * Places every Object of another ArrayListDC at the end of this ArrayListDC.
+     * Precondition: Must pass an ArrayListDC object. It may be this ArrayListDC.
+     * Postcondition: Same as addAll(Object[] items) with the elements of the other list.
+     * @param other | The list whose Objects are added to the arrayList array.
+     */
+    public void addAll(ArrayListDC other) {
+        appendAll(other.arrayList, other.elementsInArray);
+    }
+
+    /**
+     * Removes every occurrence of every Object in an array.
+     * Precondition: Must pass an array of Objects.
+     * Postcondition: The Objects are placed in a HashSet and removeIf() removes every element
+     * that is in the set in a single pass.
+     * @param items | The Objects to be removed from the arrayList array.
+     * @return int  | The number of elements that were removed.
+     */
+    public int removeAll(Object[] items) {
+        HashSet<Object> remove = toSet(items, items.length);
+        return removeIf(remove::contains);
+    }
+
+    /**
+     * Removes every occurrence of every Object in another ArrayListDC.
+     * Precondition: Must pass an ArrayListDC object.
+     * Postcondition: Same as removeAll(Object[] items) with the elements of the other list.
+     * @param other | The list whose Objects are removed from the arrayList array.
+     * @return int  | The number of elements that were removed.
+     */
+    public int removeAll(ArrayListDC other) {
+        HashSet<Object> remove = toSet(other.arrayList, other.elementsInArray);
+        return removeIf(remove::contains);
+    }
+
+    /**
+     * Keeps only the elements that are in an array.
+     * Precondition: Must pass an array of Objects.
+     * Postcondition: The Objects are placed in a HashSet and removeIf() removes every element
+     * that is not in the set in a single pass.
+     * @param items | The Objects to be kept in the arrayList array.
+     * @return int  | The number of elements that were removed.
+     */
+    public int retainAll(Object[] items) {
+        HashSet<Object> keep = toSet(items, items.length);
+        return removeIf(element -> !keep.contains(element));
+    }
+
+    /**
+     * Keeps only the elements that are in another ArrayListDC.
+     * Precondition: Must pass an ArrayListDC object.
+     * Postcondition: Same as retainAll(Object[] items) with the elements of the other list.
+     * @param other | The list whose Objects are kept in the arrayList array.
+     * @return int  | The number of elements that were removed.
+     */
+    public int retainAll(ArrayListDC other) {
+        HashSet<Object> keep = toSet(other.arrayList, other.elementsInArray);
+        return removeIf(element -> !keep.contains(element));
+    }
+
+    /**
+     * Removes every element that matches a condition.
+     * Precondition: Must pass a Predicate that returns true for the elements to remove.
+     * Postcondition: The condition is tested on every element from location 0 and the
+     * positions of the matching elements are marked in a BitSet, before anything is moved,
+     * so the condition always sees the list unchanged and the list is not changed if it
+     * throws. If nothing matches, the method returns without copying a shared array.
+     * Otherwise, if a snapshot shares the array, the elements are copied first, and every
+     * element that is kept is moved down to the next free position, so the array is
+     * compacted in a single pass no matter how many elements are removed. The slots after
+     * the last kept element are set to null and elementsInArray is set to the amount of
+     * kept elements.
+     * @param filter | The condition that the removed elements match.
+     * @return int   | The number of elements that were removed.
+     */
+    public int removeIf(Predicate<Object> filter) {
+        int size = this.elementsInArray;
+        BitSet matches = new BitSet(size);
+
+        // Invariant: 0 <= i < size
+        for (int i = 0; i < size; i++) {
+            if (filter.test(this.arrayList[i])) {
+                matches.set(i);
+            }
+        }
+
+        int removed = matches.cardinality();
+
+        if (removed == 0) {
+            return 0;
+        }
+
+        unshare();
+
+        int first = matches.nextSetBit(0);
+        int kept = first;
+
+        // Invariant: kept <= i < size and the elements before kept are the kept ones
+        for (int i = kept; i < size; i++) {
+            if (!matches.get(i)) {
+                this.arrayList[kept] = this.arrayList[i];
+                kept++;
+            }
+        }
+
+        if (this.stats != null) {
+            this.stats.recordShift(kept - first);
+        }
+
+        Arrays.fill(this.arrayList, kept, size, null);
+        this.elementsInArray = kept;
+        this.modCount++;
+
+        if (this.index != null) {
+            rebuildIndex();
+        }
+
+        return removed;
+    }
+
+    /**
+     * Returns an iterator over the elements from location 0 to the last element.
+     * Precondition: The ArrayListDC object must be instantiated in the user program.
+     * Postcondition: The iterator reads the arrayList array directly, without the bounds
+     * checks of get(). If the list is changed while iterating, other than through the
+     * iterator, next() throws a ConcurrentModificationException.
+     * @return Iterator<Object>
+     */
+    @Override
+    public Iterator<Object> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Passes every element, from location 0, to an action.
+     * Precondition: Must pass an action that accepts an Object.
+     * Postcondition: Loops over the arrayList array without creating an iterator. Throws a
+     * ConcurrentModificationException if the action changes the list.
+     * @param action | The action to perform on each element.
+     */
+    @Override
+    public void forEach(Consumer<? super Object> action) {
+        int expectedModCount = this.modCount;
+        Object[] elements = this.arrayList;
+        int size = this.elementsInArray;
+
+        // Invariant: 0 <= i < size
+        for (int i = 0; i < size && this.modCount == expectedModCount; i++) {
+            action.accept(elements[i]);
+        }
+
+        if (this.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the elements.
+     * Precondition: The ArrayListDC object must be instantiated in the user program.
+     * Postcondition: The Spliterator is SIZED, SUBSIZED and ORDERED. It splits its range
+     * in half, so a parallel stream divides the work evenly between ForkJoin workers.
+     * It binds to the list when it is first used and fails fast if the list is changed.
+     * @return Spliterator<Object>
+     */
+    @Override
+    public Spliterator<Object> spliterator() {
+        return new ArrayListDCSpliterator(this, 0, -1, 0);
+    }
+
+    /**
+     * Returns a sequential Stream of the elements.
+     * @return Stream<Object>
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel Stream of the elements.
+     * @return Stream<Object>
+     */
+    public Stream<Object> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Copies the first count Objects of an array after the last element.
+     * Precondition: items must hold at least count Objects. items may be the arrayList array.
+     * Postcondition: ensureCapacity() grows the arrayList array at most once. The Objects are
+     * copied with System.arraycopy() and added to the hash index if the list is indexed.
+     * @param items | The Objects to be added.
+     * @param count | The amount of Objects to add.
+     */
+    private void appendAll(Object[] items, int count) {
+        ensureCapacity(this.elementsInArray + count);
+        System.arraycopy(items, 0, this.arrayList, this.elementsInArray, count);
+
+        if (this.index != null) {
+            // Invariant: elementsInArray <= i < elementsInArray + count
+            for (int i = this.elementsInArray; i < this.elementsInArray + count; i++) {
+                if (this.arrayList[i] != null) {
+                    this.index.putIfAbsent(this.arrayList[i], i);
+                }
+            }
+        }
+
+        this.elementsInArray += count;
+        this.modCount++;
+    }
+
+    /**
+     * Places the first count Objects of an array in a HashSet.
+     * Precondition: items must hold at least count Objects.
+     * Postcondition: Returns a HashSet sized for count Objects, so it does not have to grow.
+     * @param items | The Objects to place in the set.
+     * @param count | The amount of Objects to place in the set.
+     * @return HashSet<Object>
+     */
+    private static HashSet<Object> toSet(Object[] items, int count) {
+        HashSet<Object> set = new HashSet<Object>(Math.max(16, (int) (count / 0.75f) + 1));
+
+        // Invariant: 0 <= i < count
+        for (int i = 0; i < count; i++) {
+            set.add(items[i]);
+        }
+
+        return set;
+    }
+
+    /**
+     * Rebuilds the hash index from the elements in the arrayList array.
+     * Precondition: The list must be indexed.
+     * Postcondition: The hash map is cleared, keeping its table, and every element is added
+     * with its position, in order, so the map keeps the position of the first occurrence of
+     * each Object.
+     */
+    private void rebuildIndex() {
+        this.index.clear(this.elementsInArray);
+
         // Invariant: 0 <= i < elementsInArray
         for (int i = 0; i < this.elementsInArray; i++) {
-            if (n.equals(this.arrayList[i])) {
-                this.arrayList[i] = null;
-                this.elementsInArray--;
-                copyArray(0, "");
+            if (this.arrayList[i] != null) {
+                this.index.putIfAbsent(this.arrayList[i], i);
+            }
+        }
+    }
+
+    /**
+     * Updates the hash index after the first occurrence of an Object was removed.
+     * Precondition: The list must be indexed. The Object was at position i and the elements
+     * after it have already been shifted one position to the left.
+     * Postcondition: Every position after i is decremented by 1 in the hash map. The Object
+     * is mapped to its next occurrence, which is found by scanning from position i, or
+     * removed from the map if it no longer occurs.
+     * @param n | The Object that was removed.
+     * @param i | The position it was removed from.
+     */
+    private void updateIndexAfterRemove(Object n, int i) {
+        this.index.remove(n);
+        this.index.shift(i + 1, -1);
+
+        // Invariant: i <= j < elementsInArray and no element from i to j - 1 equals n
+        for (int j = i; j < this.elementsInArray; j++) {
+            if (n.equals(this.arrayList[j])) {
+                this.index.putIfAbsent(this.arrayList[j], j);
                 return;
             }
         }
@@ -245,68 +701,388 @@ public class ArrayListDC {
     }
 
     /**
-     * Copies the arrayList array to the larger tempArray array. Copies the contents of
-     * the tempArray array to the new arrayList array.
-     * Precondition: must pass the size that the tempArray will be incremented by. If action
-     * is "double" the size will be doubled.
-     * Postcondition: The size parameter is passed to the increaseArraySize() method. The
-     * method performs the necessary calculations and returns the new array size. The
-     * tempArray array is instantiated with the size. A tempElement is set to keep track
-     * of the tempArray element position. A for loop tests to make sure that the index of
-     * the element, represented as i, is less than the length of the arrayList array. After
-     * each loop, i and tempElement variables are incremented by 1. Within the loop body,
-     * a check is preformed to see if the current element is an Object or null. If it's null,
-     * the tempElement is decremented by 1 and the loop skips the remainder of the code. If
-     * it is not null, the tempArray at index tempElement is assigned the value of arrayList
-     * at index i.
-     *   For example, if index 1 in arrayList is null, the next go around the code may resemble
-     *   the following: tempArray[1] = arrayList[2];
-     * After the loop, the arrayList array is set to null. It's instantiated as a new Object[]
-     * with the size that is the size of the tempArray. The arrayList is assigned assigned the
-     * tempArray array.
-     * @param size   | Size to increment the new array by.
-     * @param action | Tells the increaseArraySize how to process the size.
-     */
-    private void copyArray(int size, String action) {
-        size = increaseArraySize(size, action);
-
-        Object[] tempArray = new Object[size];
-
-        int tempElement = 0;
-
-        // Invariants: 0 <= i < arrayList.length && 0 <= tempElement < arrayList.length
-        for (int i = 0; i < this.arrayList.length; i++, tempElement++) {
-            if (this.arrayList[i] == null) {
-                tempElement--;
-                continue;
-            }
+     * Grows the arrayList array so that it can hold at least minCapacity elements.
+     * Precondition: minCapacity must be larger than the length of the arrayList array.
+     * Postcondition: The growthPolicy computes the new capacity from the current capacity
+     * and copyArray() moves the elements into an array of that length.
+     * @param minCapacity | The smallest length that fits all of the elements.
+     */
+    private void grow(int minCapacity) {
+        copyArray(this.growthPolicy.newCapacity(this.arrayList.length, minCapacity));
+    }
+
+    /**
+     * Gives the list its own copy of the arrayList array if a snapshot shares it.
+     * Precondition: Must be called before overwriting any of the first elementsInArray slots.
+     * Postcondition: If the array is shared, copyArray() copies the elements into a new
+     * array of the same capacity. The snapshots keep the old array.
+     */
+    private void unshare() {
+        if (this.shared) {
+            copyArray(this.arrayList.length);
+        }
+    }
+
+    /**
+     * Copies the arrayList array to a tempArray array of the given capacity.
+     * Precondition: The capacity must be at least elementsInArray.
+     * Postcondition: The tempArray array is instantiated with the capacity. The live
+     * elements, 0 up to elementsInArray, are copied into the tempArray with
+     * System.arraycopy(). The arrayList is assigned the tempArray array, which no snapshot
+     * shares. The reallocation is recorded if stats are enabled.
+     * @param capacity | The length of the new array.
+     */
+    private void copyArray(int capacity) {
+        Object[] tempArray = new Object[capacity];
+        System.arraycopy(this.arrayList, 0, tempArray, 0, this.elementsInArray);
 
-            tempArray[tempElement] = this.arrayList[i];
+        if (this.stats != null) {
+            this.stats.recordResize(this.elementsInArray, capacity);
         }
 
-        this.arrayList = null;
-        this.arrayList = new Object[tempArray.length];
         this.arrayList = tempArray;
+        this.shared = false;
+    }
+
+    /**
+     * An open addressing hash map from an Object to the index of its first occurrence.
+     * Collisions are resolved with linear probing. The table is kept at most half full, so
+     * a lookup only probes a few slots on average.
+     */
+    private static class FirstIndexMap {
+
+        /** The Objects stored in the table; null marks an empty slot */
+        private Object[] keys;
+
+        /** The index of the first occurrence of the Object stored in the same slot */
+        private int[] values;
+
+        /** The number of Objects stored in the table */
+        private int count;
+
+        /**
+         * Creates a table large enough to hold the expected amount of Objects.
+         * @param expected | The amount of Objects the table should hold without growing.
+         */
+        FirstIndexMap(int expected) {
+            clear(expected);
+        }
+
+        /**
+         * Empties the table and sizes it for the expected amount of Objects. The current
+         * table is reused if it is large enough, so only a larger table is allocated.
+         * @param expected | The amount of Objects the table should hold without growing.
+         */
+        void clear(int expected) {
+            int capacity = 16;
+
+            while (capacity < expected * 2) {
+                capacity <<= 1;
+            }
+
+            if (this.keys != null && this.keys.length >= capacity) {
+                Arrays.fill(this.keys, null);
+            } else {
+                this.keys = new Object[capacity];
+                this.values = new int[capacity];
+            }
+
+            this.count = 0;
+        }
+
+        /**
+         * Returns the index stored for the Object.
+         * @param key  | The Object to look up.
+         * @return int | The stored index, or -1 if the Object is not in the table.
+         */
+        int get(Object key) {
+            int mask = this.keys.length - 1;
+
+            // Invariant: keys[i] is either null, key, or a different Object that collided
+            for (int i = hash(key) & mask; this.keys[i] != null; i = (i + 1) & mask) {
+                if (key.equals(this.keys[i])) {
+                    return this.values[i];
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Stores the index for the Object unless the Object is already in the table.
+         * @param key   | The Object to store.
+         * @param value | The index of the Object.
+         */
+        void putIfAbsent(Object key, int value) {
+            if ((this.count + 1) * 2 > this.keys.length) {
+                grow();
+            }
+
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+
+            // Invariant: keys[i] is either null, key, or a different Object that collided
+            while (this.keys[i] != null) {
+                if (key.equals(this.keys[i])) {
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            this.keys[i] = key;
+            this.values[i] = value;
+            this.count++;
+        }
+
+        /**
+         * Stores the index for the Object if the Object is not in the table or is stored with
+         * a larger index.
+         * @param key   | The Object to store.
+         * @param value | The index of the Object.
+         */
+        void putIfSmaller(Object key, int value) {
+            int mask = this.keys.length - 1;
+
+            // Invariant: keys[i] is either null, key, or a different Object that collided
+            for (int i = hash(key) & mask; this.keys[i] != null; i = (i + 1) & mask) {
+                if (key.equals(this.keys[i])) {
+                    this.values[i] = Math.min(this.values[i], value);
+                    return;
+                }
+            }
+
+            putIfAbsent(key, value);
+        }
+
+        /**
+         * Removes the Object from the table.
+         * Postcondition: The Objects after the emptied slot that would no longer be found
+         * from their home slot are moved back into it, so no probe sequence is broken and
+         * no deleted marker is needed.
+         * @param key | The Object to remove.
+         */
+        void remove(Object key) {
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+
+            // Invariant: keys[i] is either null, key, or a different Object that collided
+            while (this.keys[i] != null && !key.equals(this.keys[i])) {
+                i = (i + 1) & mask;
+            }
+
+            if (this.keys[i] == null) {
+                return;
+            }
+
+            this.keys[i] = null;
+            this.count--;
+
+            // Invariant: keys[i] is empty and every Object between i and j is reachable
+            for (int j = (i + 1) & mask; this.keys[j] != null; j = (j + 1) & mask) {
+                int home = hash(this.keys[j]) & mask;
+
+                // Move the Object back if its home slot is not between the empty slot and j
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    this.keys[i] = this.keys[j];
+                    this.values[i] = this.values[j];
+                    this.keys[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * Adds delta to every stored index that is at least from.
+         * @param from  | The first index to change.
+         * @param delta | The amount to add.
+         */
+        void shift(int from, int delta) {
+            // Invariant: 0 <= i < keys.length
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] != null && this.values[i] >= from) {
+                    this.values[i] += delta;
+                }
+            }
+        }
+
+        /**
+         * Doubles the table and places every stored Object in its new slot.
+         */
+        private void grow() {
+            Object[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            int mask = oldKeys.length * 2 - 1;
+
+            this.keys = new Object[oldKeys.length * 2];
+            this.values = new int[oldKeys.length * 2];
+
+            // Invariant: 0 <= j < oldKeys.length
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) {
+                    continue;
+                }
+
+                int i = hash(oldKeys[j]) & mask;
+
+                while (this.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+
+        /**
+         * Spreads the higher bits of the hash code into the lower bits used by the mask.
+         * @param key  | The Object to hash.
+         * @return int | The spread hash code.
+         */
+        private static int hash(Object key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Iterates over the elements of the ArrayListDC. Holds only a cursor and the modCount
+     * that it expects, so escape analysis can usually remove the allocation.
+     */
+    private class Itr implements Iterator<Object> {
+
+        /** The index of the next element to return */
+        private int cursor;
+
+        /** The modCount of the list when the iterator was created */
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return this.cursor < elementsInArray;
+        }
+
+        @Override
+        public Object next() {
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (this.cursor >= elementsInArray) {
+                throw new NoSuchElementException();
+            }
+
+            return arrayList[this.cursor++];
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            // Invariant: cursor <= i < elementsInArray
+            for (int i = this.cursor; i < elementsInArray && modCount == this.expectedModCount; i++) {
+                action.accept(arrayList[i]);
+                this.cursor = i + 1;
+            }
+
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 
     /**
-     * Increases the array size if size positive, decreases if negative.
-     *
-     * Precondition: Must pass the size parameter of type int.
-     * Postcondition: Checks to see if the action parameter is equal to "double". If so,
-     * the arrayList length is doubled and stored within the size variable. If not,
-     * the arrayList length is incremented by the value passed in the size parameter
-     * and stored in the size variable. Size is then returned.
-     * @param size | EDIT
-     * @param action | EDIT
+     * Splits the elements of an ArrayListDC into halves for parallel streams.
      */
-    private int increaseArraySize(int size, String action) {
-        if (action.equals("double")) {
-            size = this.arrayList.length * 2;
-        } else {
-            size = this.arrayList.length + size;
+    private static final class ArrayListDCSpliterator implements Spliterator<Object> {
+
+        /** The list that is being split */
+        private final ArrayListDC list;
+
+        /** The index of the next element to return */
+        private int index;
+
+        /** One past the last index; -1 until the Spliterator is first used */
+        private int fence;
+
+        /** The modCount of the list when the fence was set */
+        private int expectedModCount;
+
+        ArrayListDCSpliterator(ArrayListDC list, int origin, int fence, int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Binds to the size of the list the first time it's needed.
+         * @return int | The fence.
+         */
+        private int getFence() {
+            if (this.fence < 0) {
+                this.expectedModCount = this.list.modCount;
+                this.fence = this.list.elementsInArray;
+            }
+
+            return this.fence;
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            int hi = getFence();
+            int lo = this.index;
+            int mid = (lo + hi) >>> 1;
+
+            if (lo >= mid) {
+                return null;
+            }
+
+            this.index = mid;
+            return new ArrayListDCSpliterator(this.list, lo, mid, this.expectedModCount);
         }
 
-        return size;
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            int hi = getFence();
+
+            if (this.index >= hi) {
+                return false;
+            }
+
+            Object element = this.list.arrayList[this.index++];
+            action.accept(element);
+
+            if (this.list.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Object> action) {
+            int hi = getFence();
+            Object[] elements = this.list.arrayList;
+
+            // Invariant: index <= i < hi
+            for (int i = this.index; i < hi; i++) {
+                action.accept(elements[i]);
+            }
+
+            this.index = hi;
+
+            if (this.list.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - this.index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
     }
 }
@@ -0,0 +1,291 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: Measures how fast ArrayListDC is compared to java.util.ArrayList.
+ *
+ * Solution to the problem: Each operation is run against both lists at sizes from 10 up
+ * to the maximum size (10, 100, ..., 10^7 by default). Every measurement is repeated
+ * WARMUP_ITERATIONS times so that the JIT compiles the code, and then MEASURED_ITERATIONS
+ * times while the time and the bytes allocated by the thread are recorded. The bytes come
+ * from com.sun.management.ThreadMXBean, the same counter the JMH GC profiler reads. The
+ * operations are:
+ *   add        build a list of n elements with add(x)
+ *   addAt      insert OPS elements into the middle of a list of n elements
+ *   get        read every element of a list of n elements with get(i)
+ *   find       find OPS elements that are near the end of a list of n elements
+ *   remove     remove OPS elements from the middle and add them back at the end
+ *   iterate    visit every element of a list of n elements with for-each
+ * The elements are boxed before the measurements start, so neither list pays for boxing.
+ * Results are printed as a table with the throughput in operations per second, the
+ * allocation rate in MB per second and the bytes allocated per operation.
+ *
+ * How to use the program: Compile every class and run
+ *   java -Xms4g -Xmx4g ArrayListDCBenchmark [maximum size]
+ * Give it a maximum size such as 100000 for a quick run.
+ */
+public class ArrayListDCBenchmark {
+
+    /** Runs that let the JIT compile the code; not recorded */
+    private static final int WARMUP_ITERATIONS = 10;
+
+    /** Runs that are recorded */
+    private static final int MEASURED_ITERATIONS = 10;
+
+    /** The amount of inserts, finds and removes in the addAt, find and remove operations */
+    private static final int OPS = 100;
+
+    /** Keeps the JIT from removing reads whose result is never used */
+    private static volatile int sink;
+
+    /**
+     * A single benchmark operation.
+     */
+    private interface Operation {
+
+        /**
+         * Prepares the lists before an iteration. Not measured.
+         * @param n | The size of the lists.
+         */
+        void setUp(int n);
+
+        /**
+         * Runs the measured work once.
+         * @param n    | The size of the lists.
+         * @return int | The number of operations performed.
+         */
+        int run(int n);
+    }
+
+    /** The elements, boxed once */
+    private static Integer[] values;
+
+    /** The ArrayListDC under test */
+    private static ArrayListDC dc;
+
+    /** The java.util.ArrayList under test */
+    private static ArrayList<Object> jdk;
+
+    /**
+     * Runs every operation at every size and prints the results.
+     * Precondition: Must have ArrayListDC class in same folder.
+     * Postcondition: Prints one row per operation, list and size.
+     * @param args | Optionally the maximum size; 10000000 if not given.
+     */
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+        values = new Integer[maxSize + OPS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-8s %-12s %10s %16s %12s %12s",
+                "Op", "List", "Size", "ops/s", "MB/s", "B/op"));
+
+        for (int n = 10; n <= maxSize; n *= 10) {
+            String[] names = {"add", "addAt", "get", "find", "remove", "iterate"};
+
+            for (String name : names) {
+                measure(name, "ArrayListDC", n, operation(name, true));
+                measure(name, "ArrayList", n, operation(name, false));
+            }
+        }
+    }
+
+    /**
+     * Creates an operation for ArrayListDC or for java.util.ArrayList.
+     * @param name       | The name of the operation.
+     * @param useDC      | True for ArrayListDC; false for java.util.ArrayList.
+     * @return Operation
+     */
+    private static Operation operation(String name, boolean useDC) {
+        switch (name) {
+            case "add":
+                return new Operation() {
+                    public void setUp(int n) {
+                        dc = null;
+                        jdk = null;
+                    }
+
+                    public int run(int n) {
+                        if (useDC) {
+                            dc = new ArrayListDC();
+                            for (int i = 0; i < n; i++) {
+                                dc.add(values[i]);
+                            }
+                        } else {
+                            jdk = new ArrayList<Object>();
+                            for (int i = 0; i < n; i++) {
+                                jdk.add(values[i]);
+                            }
+                        }
+
+                        return n;
+                    }
+                };
+            case "addAt":
+                return new Operation() {
+                    public void setUp(int n) {
+                        fill(n, useDC);
+                    }
+
+                    public int run(int n) {
+                        for (int i = 0; i < OPS; i++) {
+                            if (useDC) {
+                                dc.add(n / 2, values[n + i]);
+                            } else {
+                                jdk.add(n / 2, values[n + i]);
+                            }
+                        }
+
+                        return OPS;
+                    }
+                };
+            case "get":
+                return new Operation() {
+                    public void setUp(int n) {
+                        fill(n, useDC);
+                    }
+
+                    public int run(int n) {
+                        int hash = 0;
+
+                        for (int i = 0; i < n; i++) {
+                            hash += useDC ? dc.get(i).hashCode() : jdk.get(i).hashCode();
+                        }
+
+                        sink = hash;
+                        return n;
+                    }
+                };
+            case "find":
+                return new Operation() {
+                    public void setUp(int n) {
+                        fill(n, useDC);
+                    }
+
+                    public int run(int n) {
+                        int hash = 0;
+
+                        for (int i = 0; i < OPS; i++) {
+                            Integer target = values[n - 1 - i % n];
+                            hash += useDC ? dc.find(target) : jdk.indexOf(target);
+                        }
+
+                        sink = hash;
+                        return OPS;
+                    }
+                };
+            case "remove":
+                return new Operation() {
+                    public void setUp(int n) {
+                        fill(n, useDC);
+                    }
+
+                    public int run(int n) {
+                        for (int i = 0; i < OPS; i++) {
+                            if (useDC) {
+                                Object middle = dc.get(n / 2);
+                                dc.remove(middle);
+                                dc.add(middle);
+                            } else {
+                                Object middle = jdk.get(n / 2);
+                                jdk.remove(middle);
+                                jdk.add(middle);
+                            }
+                        }
+
+                        return OPS;
+                    }
+                };
+            default:
+                return new Operation() {
+                    public void setUp(int n) {
+                        fill(n, useDC);
+                    }
+
+                    public int run(int n) {
+                        int hash = 0;
+
+                        if (useDC) {
+                            for (Object element : dc) {
+                                hash += element.hashCode();
+                            }
+                        } else {
+                            for (Object element : jdk) {
+                                hash += element.hashCode();
+                            }
+                        }
+
+                        sink = hash;
+                        return n;
+                    }
+                };
+        }
+    }
+
+    /**
+     * Creates a list with the first n elements.
+     * @param n     | The size of the list.
+     * @param useDC | True to fill an ArrayListDC; false to fill a java.util.ArrayList.
+     */
+    private static void fill(int n, boolean useDC) {
+        dc = null;
+        jdk = null;
+
+        if (useDC) {
+            dc = new ArrayListDC(n + OPS);
+            for (int i = 0; i < n; i++) {
+                dc.add(values[i]);
+            }
+        } else {
+            jdk = new ArrayList<Object>(n + OPS);
+            for (int i = 0; i < n; i++) {
+                jdk.add(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Warms up and measures an operation and prints its row.
+     * Precondition: Must pass an operation created by operation().
+     * Postcondition: Prints the average throughput, the allocation rate and the bytes
+     * allocated per operation of the measured iterations.
+     * @param op        | The name of the operation.
+     * @param list      | The name of the list.
+     * @param n         | The size of the list.
+     * @param operation | The operation to measure.
+     */
+    private static void measure(String op, String list, int n, Operation operation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.setUp(n);
+            operation.run(n);
+        }
+
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.setUp(n);
+
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            ops += operation.run(n);
+            nanos += System.nanoTime() - start;
+            bytes += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        }
+
+        double seconds = nanos / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%-8s %-12s %10d %16.0f %12.1f %12.2f",
+                op, list, n, ops / seconds, bytes / seconds / (1024 * 1024), (double) bytes / ops));
+    }
+}
@@ -1,3 +1,6 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
 /**
  * Author: Dino Cajic
  *
@@ -13,7 +16,11 @@ public class ArrayListDCDriver {
      * Postcondition: Creates an ArrayListDC object of size 50. Adds and removes
      * Objects from the list. Tests each of the methods to make sure everything
      * is working. Creates another ArrayListDC object utilizing the default
-     * constructor. Again tests each of the ArrayListDC's methods.
+     * constructor. Again tests each of the ArrayListDC's methods. Then tests the
+     * primitive IntArrayListDC variant, the GapArrayListDC gap buffer, the indexed
+     * ArrayListDC, the capacity methods, the bulk operations, iteration, the
+     * SortedArrayListDC, the SegmentedArrayListDC, the stats and the snapshot. Finally
+     * tests the out of bounds checks.
      * @param args
      */
     public static void main(String[] args) {
@@ -80,7 +87,7 @@ public class ArrayListDCDriver {
         test.add(2, "DINO");
         test.add(2, "CAJIC");
         test.add(10, "DINO");
-        test.add(19, "DINO");
+        test.add(test.size(), "DINO");
         test.remove("DINO");
         test.remove("x");
         System.out.println("Current size: " + test.size());
@@ -96,6 +103,214 @@ public class ArrayListDCDriver {
             System.out.println("ArrayListDC[" + i + "] : " + test.get(i));
         }
 
-        System.out.println("Out of bounds test: " + test.get(22));
+        System.out.println("************************************************");
+
+        System.out.println("Tests the primitive IntArrayListDC");
+
+        IntArrayListDC ids = new IntArrayListDC();
+        for (int i = 0; i < 20; i++) {
+            ids.add((int)(Math.random() * 20) + 1);
+        }
+        ids.add(12345);
+        ids.add(0, 777);
+        System.out.println("Current size: " + ids.size());
+        System.out.println("Value at index 0: " + ids.get(0));
+        System.out.println("The index of 12345 is " + ids.find(12345));
+        ids.remove(777);
+        System.out.println("Is 777 in array list? : " + ids.isIn(777));
+        System.out.println("Current size: " + ids.size());
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the gap buffer GapArrayListDC");
+
+        GapArrayListDC text = new GapArrayListDC();
+        for (char c : "Hello World".toCharArray()) {
+            text.add(c);
+        }
+        // Clustered inserts at the cursor position only fill the gap
+        text.add(5, ',');
+        text.add(6, ' ');
+        text.add(7, 'D');
+        text.add(8, 'C');
+        text.add(9, '!');
+        text.removeAt(9);
+        System.out.print("Gap buffer contents: ");
+        for (int i = 0; i < text.size(); i++) {
+            System.out.print(text.get(i));
+        }
+        System.out.println();
+        System.out.println("Position of W: " + text.find('W'));
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the indexed ArrayListDC");
+
+        ArrayListDC indexed = new ArrayListDC(10, true);
+        for (int i = 0; i < 1000; i++) {
+            indexed.add("id" + i);
+        }
+        System.out.println("Position of id500: " + indexed.find("id500"));
+        indexed.remove("id10");
+        System.out.println("Position of id500 after removing id10: " + indexed.find("id500"));
+        indexed.add(0, "id500");
+        System.out.println("Position of id500 after inserting it at 0: " + indexed.find("id500"));
+        System.out.println("Is id10 in array list? : " + indexed.isIn("id10"));
+        indexed.add(2, "id7");
+        indexed.remove("id7");
+        System.out.println("Position of id7 after inserting a copy at 2 and removing it: " + indexed.find("id7"));
+        indexed.remove("id7");
+        System.out.println("Position of id7 after removing the last copy: " + indexed.find("id7"));
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the growth policy, ensureCapacity and trimToSize");
+
+        ArrayListDC bulk = new ArrayListDC();
+        bulk.setGrowthPolicy(GrowthPolicy.ONE_AND_A_HALF);
+        bulk.ensureCapacity(5000);
+        System.out.println("Capacity after ensureCapacity(5000): " + bulk.capacity());
+        for (int i = 0; i < 5001; i++) {
+            bulk.add(i);
+        }
+        System.out.println("Capacity after adding 5001 elements: " + bulk.capacity());
+        for (int i = 100; i < 5001; i++) {
+            bulk.remove(i);
+        }
+        bulk.trimToSize();
+        System.out.println("Capacity after removals and trimToSize: " + bulk.capacity());
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the bulk operations");
+
+        ArrayListDC batch = new ArrayListDC(4, true);
+        batch.addAll(new Object[] {"a", "b", "c", "d", "e", "f", "a", "b"});
+        batch.addAll(batch);
+        System.out.println("Size after addAll: " + batch.size());
+        System.out.println("Removed by removeAll(a, c): " + batch.removeAll(new Object[] {"a", "c"}));
+        System.out.println("Removed by retainAll(b, d, f): " + batch.retainAll(new Object[] {"b", "d", "f"}));
+        System.out.println("Removed by removeIf(d): " + batch.removeIf(element -> element.equals("d")));
+        System.out.println("Position of f: " + batch.find("f"));
+
+        for (int i = 0; i < batch.size(); i++) {
+            System.out.println("ArrayListDC[" + i + "] : " + batch.get(i));
+        }
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests iteration and streams");
+
+        System.out.print("Elements of the bulk list:");
+        for (Object element : batch) {
+            System.out.print(" " + element);
+        }
+        System.out.println();
+
+        ArrayListDC numbers = new ArrayListDC(100000);
+        for (int i = 1; i <= 100000; i++) {
+            numbers.add(i);
+        }
+        System.out.println("Sum of 1 to 100000 with stream(): " +
+                numbers.stream().mapToLong(element -> (Integer) element).sum());
+        System.out.println("Sum of 1 to 100000 with parallelStream(): " +
+                numbers.parallelStream().mapToLong(element -> (Integer) element).sum());
+
+        try {
+            for (Object element : batch) {
+                batch.add(element);
+            }
+        } catch (ConcurrentModificationException e) {
+            System.out.println("Changing the list while iterating fails fast: " + e);
+        }
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the SortedArrayListDC");
+
+        SortedArrayListDC sorted = new SortedArrayListDC();
+        for (String word : new String[] {"pear", "apple", "fig", "kiwi", "banana", "cherry", "fig"}) {
+            sorted.add(word);
+        }
+        System.out.print("Sorted elements:");
+        for (int i = 0; i < sorted.size(); i++) {
+            System.out.print(" " + sorted.get(i));
+        }
+        System.out.println();
+        System.out.println("Position of fig: " + sorted.find("fig"));
+        sorted.remove("fig");
+        System.out.println("Is fig still in the list? : " + sorted.isIn("fig"));
+        SortedArrayListDC range = sorted.subRange("b", "g");
+        System.out.print("Elements from b up to g:");
+        for (int i = 0; i < range.size(); i++) {
+            System.out.print(" " + range.get(i));
+        }
+        System.out.println();
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the SegmentedArrayListDC");
+
+        SegmentedArrayListDC segmented = new SegmentedArrayListDC(4);
+        for (int i = 0; i < 10; i++) {
+            segmented.add(i);
+        }
+        segmented.add(3, 100);
+        segmented.remove(7);
+        System.out.print("Segmented elements:");
+        for (int i = 0; i < segmented.size(); i++) {
+            System.out.print(" " + segmented.get(i));
+        }
+        System.out.println();
+        System.out.println("Position of 9: " + segmented.find(9));
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the ArrayListDC stats");
+
+        ArrayListDC measured = new ArrayListDC(2);
+        ArrayListDCStats stats = measured.enableStats();
+        for (int i = 0; i < 10; i++) {
+            measured.add(i);
+        }
+        measured.add(0, -1);
+        measured.find(9);
+        measured.remove(5);
+        System.out.println("Resizes: " + stats.getResizeCount());
+        System.out.println("Elements copied: " + stats.getElementsCopied());
+        System.out.println("Elements shifted: " + stats.getElementsShifted());
+        System.out.println("Find probes: " + stats.getFindProbes());
+        System.out.println("Peak capacity: " + stats.getPeakCapacity());
+        System.out.println("Wasted slots: " + stats.getWastedSlots());
+
+        System.out.println("************************************************");
+
+        System.out.println("Tests the ArrayListDC snapshot");
+
+        ArrayListDC live = new ArrayListDC();
+        for (int i = 0; i < 5; i++) {
+            live.add(i);
+        }
+        ArrayListDCSnapshot snapshot = live.snapshot();
+        live.add(5);
+        live.remove(0);
+        live.add(0, 100);
+        System.out.println("Live elements: " + Arrays.toString(live.stream().toArray()));
+        System.out.println("Snapshot elements: " + Arrays.toString(snapshot.toArray()));
+        System.out.println("Snapshot size: " + snapshot.size());
+
+        try {
+            System.out.println("Out of bounds test: " + test.get(22));
+        } catch (IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds test: " + e.getMessage());
+        }
+
+        try {
+            test.add(19, "DINO");
+        } catch (IndexOutOfBoundsException e) {
+            System.out.println("Out of bounds insert test: " + e.getMessage());
+        }
+
+        System.out.println("The list is unchanged, current size: " + test.size());
     }
 }
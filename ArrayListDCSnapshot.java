@@ -0,0 +1,158 @@
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: A read only view of an ArrayListDC as it was when ArrayListDC.snapshot() was
+ * called.
+ *
+ * Data Structures used: Array (shared with the ArrayListDC)
+ *
+ * Solution to the problem: Copying a whole list so that a report sees consistent data
+ * costs O(n) time and memory. A snapshot instead keeps a reference to the arrayList array
+ * of the ArrayListDC and the amount of elements it had. The ArrayListDC marks the array as
+ * shared, and before its next change to one of the slots that the snapshot can see (an
+ * insert at an index or a removal) it copies the elements into a new array. Appends only
+ * write to slots past the end of the snapshot, so they don't copy anything. Taking a
+ * snapshot is O(1), and the first change that isn't an append pays for a single copy no
+ * matter how many snapshots share the array. The class has the read methods of ArrayListDC:
+ * 1). get the object from a specific index location: Object get(int index)
+ * 2). check to see how many elements are in the snapshot: int size()
+ * 3). check to see if the snapshot is empty: boolean isEmpty()
+ * 4). check to see if an object exists within the snapshot: boolean isIn(Object ob)
+ * 5). get the index location of a specific object: int find(Object n)
+ * 6). copy the elements into a new array: Object[] toArray()
+ * 7). visit the elements: iterator(), spliterator(), stream()
+ *
+ * To use the class: Call snapshot() on an ArrayListDC. The snapshot never changes, so it
+ * can be read by any thread; the call to snapshot() itself must be synchronized with the
+ * threads that change the ArrayListDC, i.e. made under the same lock.
+ */
+public final class ArrayListDCSnapshot implements Iterable<Object> {
+
+    /**
+     * The arrayList array of the ArrayListDC; only the first elementsInArray slots are read
+     */
+    private final Object[] arrayList;
+
+    /**
+     * The amount of elements the ArrayListDC had when the snapshot was taken
+     */
+    private final int elementsInArray;
+
+    /**
+     * Creates a snapshot of an array.
+     * Precondition: Called by ArrayListDC.snapshot(), which stops writing to the first
+     * elementsInArray slots of the array.
+     * Postcondition: The snapshot reads the array without copying it.
+     * @param arrayList       | The array that is shared with the ArrayListDC.
+     * @param elementsInArray | The amount of elements in the array.
+     */
+    ArrayListDCSnapshot(Object[] arrayList, int elementsInArray) {
+        this.arrayList = arrayList;
+        this.elementsInArray = elementsInArray;
+    }
+
+    /**
+     * Retrieves the Object at a given location.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Otherwise the Object at the index location is returned.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object get(int index) {
+        return this.arrayList[Objects.checkIndex(index, this.elementsInArray)];
+    }
+
+    /**
+     * Allows you to get the number of elements in the snapshot.
+     * @return elementsInArray value.
+     */
+    public int size() {
+        return this.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the snapshot is empty.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return this.elementsInArray == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the snapshot.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Scans the elements of the snapshot. If the Object is found, its position
+     * is returned. Otherwise, -1 is returned. The hash index of an indexed ArrayListDC is not
+     * shared with the snapshot.
+     * @param n  | The Object that the method will search for.
+     * @return i | The position of the Object n within the snapshot.
+     */
+    public int find(Object n) {
+        // Invariant: 0 <= i < elementsInArray
+        for (int i = 0; i < this.elementsInArray; i++) {
+            if (n.equals(this.arrayList[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Copies the elements into a new array.
+     * @return Object[] | An array of length size() that the caller may change.
+     */
+    public Object[] toArray() {
+        Object[] copy = new Object[this.elementsInArray];
+        System.arraycopy(this.arrayList, 0, copy, 0, this.elementsInArray);
+        return copy;
+    }
+
+    /**
+     * Returns an iterator over the elements from location 0 to the last element.
+     * Since the snapshot never changes, the iterator never fails.
+     * @return Iterator<Object>
+     */
+    @Override
+    public Iterator<Object> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Returns a spliterator over the elements that splits in half for parallel streams.
+     * @return Spliterator<Object> | ORDERED, SIZED, SUBSIZED and IMMUTABLE.
+     */
+    @Override
+    public Spliterator<Object> spliterator() {
+        return Spliterators.spliterator(this.arrayList, 0, this.elementsInArray,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Returns a sequential stream of the elements.
+     * @return Stream<Object>
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
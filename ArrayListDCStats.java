@@ -0,0 +1,165 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To count how often an ArrayListDC reallocates, shifts and searches its elements
+ * so that its initial capacity and growth policy can be tuned.
+ *
+ * Solution to the problem: An ArrayListDC has no ArrayListDCStats until enableStats() is
+ * called; until then every place that would record a metric only checks that the stats
+ * field is null. Once enabled, the ArrayListDC calls the record methods below. The gauges
+ * (capacity, size and wasted slots) are read from the list when they are asked for. The
+ * counters are plain fields written by the thread that uses the list, so values read from
+ * another thread, i.e. through JMX, may be slightly behind.
+ *
+ * To use the class: Call list.enableStats() and read the getters, or call register() to
+ * publish the stats as an MBean named ArrayListDC:type=Stats,name=<name>.
+ */
+public class ArrayListDCStats implements ArrayListDCStatsMBean {
+
+    /** The list that is measured */
+    private final ArrayListDC list;
+
+    /** The amount of times the arrayList array was reallocated */
+    private long resizeCount;
+
+    /** The amount of elements copied into new arrays by reallocations */
+    private long elementsCopied;
+
+    /** The amount of elements shifted by add(int index, Object x) and remove() */
+    private long elementsShifted;
+
+    /** The amount of calls to find() */
+    private long findCount;
+
+    /** The amount of elements compared, or hash lookups made, by find() */
+    private long findProbes;
+
+    /** The largest capacity the arrayList array has had */
+    private int peakCapacity;
+
+    /**
+     * Creates the stats of a list.
+     * Precondition: Called by ArrayListDC.enableStats().
+     * Postcondition: Every counter is zero and the peak capacity is the current capacity.
+     * @param list | The list that is measured.
+     */
+    ArrayListDCStats(ArrayListDC list) {
+        this.list = list;
+        this.peakCapacity = list.capacity();
+    }
+
+    /**
+     * Records a reallocation of the arrayList array.
+     * @param copied   | The amount of elements copied into the new array.
+     * @param capacity | The capacity of the new array.
+     */
+    void recordResize(int copied, int capacity) {
+        this.resizeCount++;
+        this.elementsCopied += copied;
+
+        if (capacity > this.peakCapacity) {
+            this.peakCapacity = capacity;
+        }
+    }
+
+    /**
+     * Records elements that were shifted by add(int index, Object x), remove() or removeIf().
+     * @param shifted | The amount of elements shifted.
+     */
+    void recordShift(int shifted) {
+        this.elementsShifted += shifted;
+    }
+
+    /**
+     * Records a call to find().
+     * @param probes | The amount of elements compared, or 1 for a hash lookup.
+     */
+    void recordFind(int probes) {
+        this.findCount++;
+        this.findProbes += probes;
+    }
+
+    @Override
+    public long getResizeCount() {
+        return this.resizeCount;
+    }
+
+    @Override
+    public long getElementsCopied() {
+        return this.elementsCopied;
+    }
+
+    @Override
+    public long getElementsShifted() {
+        return this.elementsShifted;
+    }
+
+    @Override
+    public long getFindCount() {
+        return this.findCount;
+    }
+
+    @Override
+    public long getFindProbes() {
+        return this.findProbes;
+    }
+
+    @Override
+    public int getPeakCapacity() {
+        return this.peakCapacity;
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.list.capacity();
+    }
+
+    @Override
+    public int getSize() {
+        return this.list.size();
+    }
+
+    @Override
+    public int getWastedSlots() {
+        return this.list.capacity() - this.list.size();
+    }
+
+    @Override
+    public void reset() {
+        this.resizeCount = 0;
+        this.elementsCopied = 0;
+        this.elementsShifted = 0;
+        this.findCount = 0;
+        this.findProbes = 0;
+        this.peakCapacity = this.list.capacity();
+    }
+
+    /**
+     * Publishes the stats with the platform MBean server.
+     * Precondition: No other MBean may be registered with the same name.
+     * Postcondition: The stats can be read as ArrayListDC:type=Stats,name=<name>.
+     * @param name          | The name that identifies the list.
+     * @return ObjectName   | The name the MBean was registered with.
+     * @throws JMException if the MBean can't be registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("ArrayListDC:type=Stats,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Removes the stats from the platform MBean server.
+     * Precondition: Must pass the name returned by register().
+     * Postcondition: The MBean is no longer published.
+     * @param objectName | The name the MBean was registered with.
+     * @throws JMException if the MBean can't be unregistered
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+}
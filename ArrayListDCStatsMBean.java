@@ -0,0 +1,39 @@
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: The JMX management interface of ArrayListDCStats. JMX finds the attributes of a
+ * standard MBean through an interface named after the class with MBean at the end; each
+ * getter becomes a read only attribute, i.e. ResizeCount, in JConsole or VisualVM.
+ */
+public interface ArrayListDCStatsMBean {
+
+    /** @return long | The amount of times the arrayList array was reallocated. */
+    long getResizeCount();
+
+    /** @return long | The amount of elements copied into new arrays by reallocations. */
+    long getElementsCopied();
+
+    /** @return long | The amount of elements shifted by add(int index, Object x) and remove(). */
+    long getElementsShifted();
+
+    /** @return long | The amount of calls to find(), including isIn() and remove(). */
+    long getFindCount();
+
+    /** @return long | The amount of elements compared, or hash lookups made, by find(). */
+    long getFindProbes();
+
+    /** @return int | The largest capacity the arrayList array has had. */
+    int getPeakCapacity();
+
+    /** @return int | The current capacity of the arrayList array. */
+    int getCapacity();
+
+    /** @return int | The current amount of elements. */
+    int getSize();
+
+    /** @return int | The current amount of unused slots in the arrayList array. */
+    int getWastedSlots();
+
+    /** Sets every counter back to zero. */
+    void reset();
+}
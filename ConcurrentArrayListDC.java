@@ -0,0 +1,263 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that many threads can use at once.
+ *
+ * Data Structures used: Array
+ *
+ * Solution to the problem: ArrayListDC has no synchronization, so it has to be wrapped
+ * in a lock that readers and writers fight over. The ConcurrentArrayListDC class
+ * publishes its array and its size together in an immutable State object stored in a
+ * volatile field. Readers read the field once and then work on that State without
+ * taking any lock, so get(), size(), find() and isIn() never block.
+ *
+ * Writers take a single lock, so there is one writer at a time:
+ * 1). add(Object x) stores x in the first unused slot of the current array and then
+ *     publishes a new State with the size incremented by 1. Readers of the old State
+ *     never look at that slot, so appends cost O(1) amortized and copy nothing unless
+ *     the array is full.
+ * 2). add(int index, Object x) and remove(Object n) would move elements that readers
+ *     of the current State can see, so they copy the array (copy on write) and publish
+ *     a State with the new array.
+ *
+ * Since every State is consistent, a reader either sees a write completely or not at
+ * all, and toArray() returns a consistent copy of the whole list.
+ *
+ * To use the class: Instantiate the ConcurrentArrayListDC class and either pass an
+ * initial size or leave blank for a default size of 10. Share it between threads.
+ */
+public class ConcurrentArrayListDC {
+
+    /**
+     * The array and the amount of elements in it. Never changes after it's published,
+     * except for the slots past size, which only the writer holding the lock touches.
+     */
+    private static final class State {
+
+        /** Stores the objects */
+        final Object[] arrayList;
+
+        /** The amount of elements in the arrayList array */
+        final int elementsInArray;
+
+        State(Object[] arrayList, int elementsInArray) {
+            this.arrayList = arrayList;
+            this.elementsInArray = elementsInArray;
+        }
+    }
+
+    /**
+     * The current State; read without locking
+     */
+    private volatile State state;
+
+    /**
+     * Lets only one writer change the list at a time
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The default constructor that creates a list with a default size of 10.
+     * Precondition: Must instantiate the class without passing a value.
+     * Postcondition: Initializes the list with a default size of 10.
+     */
+    public ConcurrentArrayListDC() {
+        this(10);
+    }
+
+    /**
+     * Constructor that allows an initial size to be passed to the array.
+     * Precondition: Parameter n must be larger than 0.
+     * Postcondition: Publishes an empty State with an array of size n.
+     * @param n | The size of the array.
+     */
+    public ConcurrentArrayListDC(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The size must be greater than 0.");
+        }
+
+        this.state = new State(new Object[n], 0);
+    }
+
+    /**
+     * Places an Object at the end of the list.
+     * Precondition: Must pass a parameter x of type Object.
+     * Postcondition: While holding the lock, doubles the array if it's full, stores x in the
+     * first unused slot and publishes a State with one more element.
+     * @param x | The object to be added to the list.
+     */
+    public void add(Object x) {
+        this.writeLock.lock();
+
+        try {
+            State current = this.state;
+            Object[] array = current.arrayList;
+
+            if (array.length == current.elementsInArray) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+
+            array[current.elementsInArray] = x;
+            this.state = new State(array, current.elementsInArray + 1);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Places an Object at a given location.
+     * Precondition: Must pass an index between 0 and size() inclusive and the Object to insert.
+     * Postcondition: While holding the lock, copies the elements into a new array with x placed
+     * at index and publishes a State with the new array. Throws an IndexOutOfBoundsException if
+     * the index is not between 0 and size().
+     * @param index | The position where the new Object should be added.
+     * @param x     | The object that should be added at the specific index.
+     */
+    public void add(int index, Object x) {
+        this.writeLock.lock();
+
+        try {
+            State current = this.state;
+            int size = current.elementsInArray;
+
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            Object[] array = new Object[Math.max(current.arrayList.length, size + 1)];
+            System.arraycopy(current.arrayList, 0, array, 0, index);
+            System.arraycopy(current.arrayList, index, array, index + 1, size - index);
+            array[index] = x;
+
+            this.state = new State(array, size + 1);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the Object at a given location without locking.
+     * Precondition: Must pass an index that's within the list bounds.
+     * Postcondition: Returns the Object at the index in the current State. Throws an
+     * IndexOutOfBoundsException if the index is not within bounds.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     */
+    public Object get(int index) {
+        State current = this.state;
+
+        if (index < 0 || index >= current.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.elementsInArray);
+        }
+
+        return current.arrayList[index];
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list without locking.
+     * Precondition: The ConcurrentArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns the size of the current State.
+     * @return int
+     */
+    public int size() {
+        return this.state.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the list is empty without locking.
+     * Precondition: The ConcurrentArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns true if the current State has zero elements.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the list without locking.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object without locking.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Scans the elements of the current State. If the Object is found, its
+     * position is returned. Otherwise, -1 is returned.
+     * @param n  | The Object that the method will search for.
+     * @return i | The position of the Object n within the list.
+     */
+    public int find(Object n) {
+        return indexOf(this.state, n);
+    }
+
+    /**
+     * Removes the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass the Object n as a parameter to be removed.
+     * Postcondition: While holding the lock, finds the Object, copies every other element
+     * into a new array and publishes a State with the new array.
+     * @param n        | The Object to be removed from the list.
+     * @return boolean | True if the Object was removed, false if it was not in the list.
+     */
+    public boolean remove(Object n) {
+        this.writeLock.lock();
+
+        try {
+            State current = this.state;
+            int i = indexOf(current, n);
+
+            if (i < 0) {
+                return false;
+            }
+
+            int size = current.elementsInArray;
+            Object[] array = new Object[current.arrayList.length];
+            System.arraycopy(current.arrayList, 0, array, 0, i);
+            System.arraycopy(current.arrayList, i + 1, array, i, size - i - 1);
+
+            this.state = new State(array, size - 1);
+            return true;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the elements in the list without locking.
+     * Precondition: The ConcurrentArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns the elements of a single State, so the copy is consistent even
+     * while other threads keep writing.
+     * @return Object[]
+     */
+    public Object[] toArray() {
+        State current = this.state;
+        return Arrays.copyOf(current.arrayList, current.elementsInArray);
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object in a State.
+     * @param current | The State to search.
+     * @param n       | The Object to search for.
+     * @return int    | The position of the Object, or -1 if it's not in the State.
+     */
+    private static int indexOf(State current, Object n) {
+        Object[] array = current.arrayList;
+
+        // Invariant: 0 <= i < current.elementsInArray
+        for (int i = 0; i < current.elementsInArray; i++) {
+            if (n.equals(array[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: Stress tests the ConcurrentArrayListDC class with many threads.
+ *
+ * Writer threads add their own values to a shared list and remove every other one.
+ * After each write, the writer checks that it can immediately see it: an added value
+ * must be found and a removed value must be gone. Reader threads keep taking snapshots
+ * with toArray() while the writers run and check that each snapshot is consistent: no
+ * slot is null, no value appears twice and the values of every writer appear in the
+ * order that writer added them. When the writers are done, the list must contain
+ * exactly the values that were not removed.
+ *
+ * How to use the program: Just run it. Prints PASSED or FAILED with the failures.
+ */
+public class ConcurrentArrayListDCDriver {
+
+    /** The amount of threads that add and remove values */
+    private static final int WRITERS = 4;
+
+    /** The amount of threads that only read */
+    private static final int READERS = 4;
+
+    /** The amount of values each writer adds */
+    private static final int VALUES_PER_WRITER = 2000;
+
+    /**
+     * Runs the stress test.
+     * Precondition: Must have ConcurrentArrayListDC class in same folder
+     * Postcondition: Starts the writers and readers at the same time, waits for the writers
+     * to finish, stops the readers and verifies the final contents of the list.
+     * @param args
+     * @throws InterruptedException if the main thread is interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentArrayListDC list = new ConcurrentArrayListDC();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        Thread[] threads = new Thread[WRITERS + READERS];
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            threads[w] = new Thread(() -> {
+                await(start);
+
+                for (int i = 0; i < VALUES_PER_WRITER; i++) {
+                    Integer value = writer * VALUES_PER_WRITER + i;
+                    list.add(value);
+
+                    if (!list.isIn(value)) {
+                        fail(failures, "Writer " + writer + " can't see its value " + value);
+                    }
+
+                    if (i % 2 == 1) {
+                        list.remove(value);
+
+                        if (list.isIn(value)) {
+                            fail(failures, "Writer " + writer + " still sees removed value " + value);
+                        }
+                    }
+                }
+
+                writersDone.countDown();
+            });
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            threads[WRITERS + r] = new Thread(() -> {
+                await(start);
+
+                while (writersDone.getCount() > 0) {
+                    checkSnapshot(list.toArray(), failures);
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Object[] result = list.toArray();
+        checkSnapshot(result, failures);
+
+        if (result.length != WRITERS * VALUES_PER_WRITER / 2) {
+            fail(failures, "Expected " + (WRITERS * VALUES_PER_WRITER / 2) + " elements but found " + result.length);
+        }
+
+        for (int value = 0; value < WRITERS * VALUES_PER_WRITER; value++) {
+            if (list.isIn(value) != (value % VALUES_PER_WRITER % 2 == 0)) {
+                fail(failures, "Wrong final membership of " + value);
+            }
+        }
+
+        System.out.println("Final size: " + list.size());
+        System.out.println(failures.get() == 0 ? "PASSED" : "FAILED with " + failures.get() + " failures");
+    }
+
+    /**
+     * Checks that a snapshot of the list is consistent.
+     * Precondition: Must pass an array returned by toArray().
+     * Postcondition: Records a failure if a slot is null, a value appears twice, or the
+     * values of a writer are not in increasing order.
+     * @param snapshot | The snapshot to check.
+     * @param failures | The failure counter.
+     */
+    private static void checkSnapshot(Object[] snapshot, AtomicInteger failures) {
+        int[] lastSeen = new int[WRITERS];
+        Arrays.fill(lastSeen, -1);
+
+        for (Object element : snapshot) {
+            if (element == null) {
+                fail(failures, "Snapshot contains a null slot");
+                return;
+            }
+
+            int value = (Integer) element;
+            int writer = value / VALUES_PER_WRITER;
+
+            if (value <= lastSeen[writer]) {
+                fail(failures, "Snapshot has " + value + " after " + lastSeen[writer]);
+                return;
+            }
+
+            lastSeen[writer] = value;
+        }
+    }
+
+    /**
+     * Waits for the latch to open.
+     * @param latch | The latch to wait for.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints a failure and counts it.
+     * @param failures | The failure counter.
+     * @param message  | The failure to print.
+     */
+    private static void fail(AtomicInteger failures, String message) {
+        failures.incrementAndGet();
+        System.out.println(message);
+    }
+}
@@ -0,0 +1,285 @@
+import java.util.Objects;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that is fast at inserting
+ * and removing Objects around the same position, like the cursor in a text editor.
+ *
+ * Data Structures used: Array (gap buffer)
+ *
+ * Solution to the problem: ArrayListDC shifts every element after the index each
+ * time add(int index, Object x) is called. The GapArrayListDC class keeps a block
+ * of unused slots, the gap, inside the arrayList array at the position of the last
+ * edit. The elements before the gap are stored at the front of the array and the
+ * elements after the gap are stored at the back of the array:
+ *   [a, b, c, _, _, _, d, e]   gapStart = 3, gapEnd = 6
+ * Inserting at the gap only fills the first free slot, and removing next to the gap
+ * only widens it, so edits that are clustered together cost O(1) amortized. Moving
+ * the gap to a new position copies only the elements between the old and the new
+ * position. get(int index) stays O(1) since the index only has to skip the gap.
+ * The class has the same methods as ArrayListDC:
+ * 1). add Objects to the end of the list: void add(Object x)
+ * 2). add Objects to a specific index location: void add(int index, Object x)
+ * 3). get the object from a specific index location: Object get(int index)
+ * 4). check to see how many elements are in the list: int size()
+ * 5). check to see if the list is empty: boolean isEmpty()
+ * 6). check to see if an object exists within the list: boolean isIn(Object ob)
+ * 7). get the index location of a specific object: int find(Object n)
+ * 8). remove the object from the list: void remove(Object n)
+ * 9). remove the object at a specific index location: Object removeAt(int index)
+ *
+ * To use the class: Instantiate the GapArrayListDC class and either pass an initial
+ * size or leave blank for a default size of 10.
+ */
+public class GapArrayListDC {
+
+    /**
+     * Stores the objects in an array with a gap of unused slots
+     */
+    private Object[] arrayList;
+
+    /**
+     * The index of the first unused slot of the gap
+     */
+    private int gapStart;
+
+    /**
+     * The index of the first element after the gap
+     */
+    private int gapEnd;
+
+    /**
+     * The default constructor that creates a list with a default size of 10.
+     * Precondition: Must instantiate the class without passing a value.
+     * Postcondition: Initializes the arrayList array with a default size of 10.
+     */
+    public GapArrayListDC() {
+        this(10);
+    }
+
+    /**
+     * Constructor that allows an initial size to be passed to the array.
+     * Precondition: Parameter n must be larger than 0.
+     * Postcondition: The constructor initializes the arrayList data field with size n.
+     * The whole array is the gap.
+     * @param n | The size of the arrayList array.
+     */
+    public GapArrayListDC(int n) {
+        if (n <= 0) {
+            System.out.println("The size must be greater than 0. Try again.");
+            return;
+        }
+
+        this.arrayList = new Object[n];
+        this.gapStart = 0;
+        this.gapEnd = n;
+    }
+
+    /**
+     * Places an Object at the end of the list.
+     * Precondition: Must pass a parameter x of type Object.
+     * Postcondition: Calls add(int index, Object x) with the index after the last element.
+     * @param x | The object to be added to the list.
+     */
+    public void add(Object x) {
+        add(size(), x);
+    }
+
+    /**
+     * Places an Object at a given location.
+     * Precondition: Must pass an index between 0 and size() inclusive and the Object to insert.
+     * Postcondition: If the index is out of bounds, an IndexOutOfBoundsException is thrown.
+     * The gap is moved to the index, and doubled in size if it's empty. The Object is stored
+     * in the first slot of the gap and gapStart is incremented by 1, so the next insert at
+     * index + 1 does not have to move anything.
+     * @param index | The position where the new Object should be added.
+     * @param x     | The object that should be added at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or greater than size()
+     */
+    public void add(int index, Object x) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+
+        moveGap(index);
+
+        if (this.gapStart == this.gapEnd) {
+            copyArray(this.arrayList.length * 2);
+        }
+
+        this.arrayList[this.gapStart] = x;
+        this.gapStart++;
+    }
+
+    /**
+     * Retrieves the Object at a given location.
+     * Precondition: Must pass an index that's within the list bounds.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Indexes past the start of the gap skip over the gap.
+     * @param index    | The index location of the Object.
+     * @return Object  | The Object at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object get(int index) {
+        Objects.checkIndex(index, size());
+
+        if (index < this.gapStart) {
+            return this.arrayList[index];
+        }
+
+        return this.arrayList[index + this.gapEnd - this.gapStart];
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list.
+     * Precondition: The GapArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns the length of the array minus the length of the gap.
+     * @return int
+     */
+    public int size() {
+        return this.arrayList.length - (this.gapEnd - this.gapStart);
+    }
+
+    /**
+     * Tests to see if the list is empty.
+     * Precondition: The GapArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns true if there are zero elements in the list.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the list.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Scans the elements before the gap and then the elements after the gap.
+     * If the Object is found, its position in the list is returned. Otherwise, -1 is returned.
+     * @param n  | The Object that the method will search for.
+     * @return i | The position of the Object n within the list.
+     */
+    public int find(Object n) {
+        // Invariant: 0 <= i < gapStart
+        for (int i = 0; i < this.gapStart; i++) {
+            if (n.equals(this.arrayList[i])) {
+                return i;
+            }
+        }
+
+        // Invariant: gapEnd <= i < arrayList.length
+        for (int i = this.gapEnd; i < this.arrayList.length; i++) {
+            if (n.equals(this.arrayList[i])) {
+                return i - (this.gapEnd - this.gapStart);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass the Object n as a parameter to be removed.
+     * Postcondition: Finds the position of the Object and calls removeAt() if it exists.
+     * @param n | The Object to be removed from the list.
+     */
+    public void remove(Object n) {
+        int index = find(n);
+
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Removes the Object at a given location.
+     * Precondition: Must pass an index that's within the list bounds.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. The gap is moved to the index and then widened by one slot
+     * so that it swallows the removed Object. The slot is set to null so that the Object can
+     * be garbage collected.
+     * @param index   | The index location of the Object to remove.
+     * @return Object | The Object that was removed.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object removeAt(int index) {
+        Objects.checkIndex(index, size());
+
+        moveGap(index);
+
+        Object removed = this.arrayList[this.gapEnd];
+        this.arrayList[this.gapEnd] = null;
+        this.gapEnd++;
+
+        return removed;
+    }
+
+    /**
+     * Moves the gap so that it starts at the given index.
+     * Precondition: The index must be between 0 and size() inclusive.
+     * Postcondition: If the index is before the gap, the elements between the index and the
+     * gap are moved to the back of the gap. If the index is after the gap, the elements
+     * between the gap and the index are moved to the front of the gap. The slots that end
+     * up inside the gap are set to null.
+     * @param index | The position the gap should start at.
+     */
+    private void moveGap(int index) {
+        if (index < this.gapStart) {
+            int count = this.gapStart - index;
+            System.arraycopy(this.arrayList, index, this.arrayList, this.gapEnd - count, count);
+            clear(index, Math.min(this.gapStart, this.gapEnd - count));
+            this.gapStart -= count;
+            this.gapEnd -= count;
+        } else if (index > this.gapStart) {
+            int count = index - this.gapStart;
+            System.arraycopy(this.arrayList, this.gapEnd, this.arrayList, this.gapStart, count);
+            clear(Math.max(this.gapEnd, this.gapStart + count), this.gapEnd + count);
+            this.gapStart += count;
+            this.gapEnd += count;
+        }
+    }
+
+    /**
+     * Sets the slots between from and to to null.
+     * Precondition: 0 <= from and to <= arrayList.length.
+     * Postcondition: arrayList[from] through arrayList[to - 1] are null.
+     * @param from | The first slot to clear.
+     * @param to   | The slot after the last slot to clear.
+     */
+    private void clear(int from, int to) {
+        // Invariant: from <= i < to
+        for (int i = from; i < to; i++) {
+            this.arrayList[i] = null;
+        }
+    }
+
+    /**
+     * Copies the arrayList array into a new array of the given capacity.
+     * Precondition: The capacity must be at least size().
+     * Postcondition: The elements before the gap are copied to the front of the new array and
+     * the elements after the gap are copied to the back of the new array, so the gap grows by
+     * the difference between the two capacities.
+     * @param capacity | The length of the new array.
+     */
+    private void copyArray(int capacity) {
+        Object[] tempArray = new Object[capacity];
+        int tail = this.arrayList.length - this.gapEnd;
+
+        System.arraycopy(this.arrayList, 0, tempArray, 0, this.gapStart);
+        System.arraycopy(this.arrayList, this.gapEnd, tempArray, capacity - tail, tail);
+
+        this.gapEnd = capacity - tail;
+        this.arrayList = tempArray;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To decide how much a resizable array grows when it runs out of room.
+ *
+ * Solution to the problem: ArrayListDC asks its GrowthPolicy for the new capacity
+ * every time the arrayList array is full. The policy receives the current capacity
+ * and the smallest capacity that would fit the new elements and returns a capacity
+ * that is at least that large. Four policies are provided:
+ * 1). DOUBLE: doubles the capacity. Few copies, up to 50% unused slots.
+ * 2). ONE_AND_A_HALF: grows by 50%. A few more copies, up to 33% unused slots.
+ * 3). fixedChunk(n): adds n slots. Wastes at most n slots, but copies more often.
+ * 4). POWER_OF_TWO: rounds up to the next power of two, which keeps capacities aligned.
+ *
+ * To use the class: Pass one of the policies, or your own lambda, to
+ * ArrayListDC.setGrowthPolicy().
+ */
+public interface GrowthPolicy {
+
+    /** Doubles the capacity */
+    GrowthPolicy DOUBLE = (capacity, minCapacity) -> atLeast(capacity * 2, minCapacity);
+
+    /** Grows the capacity by one half */
+    GrowthPolicy ONE_AND_A_HALF = (capacity, minCapacity) -> atLeast(capacity + (capacity >> 1), minCapacity);
+
+    /** Rounds the capacity up to the next power of two */
+    GrowthPolicy POWER_OF_TWO = (capacity, minCapacity) -> {
+        int needed = Math.max(capacity + 1, minCapacity);
+        int powerOfTwo = Integer.highestOneBit(needed);
+
+        return atLeast(powerOfTwo == needed ? needed : powerOfTwo << 1, minCapacity);
+    };
+
+    /**
+     * Returns the new capacity of the array.
+     * Precondition: minCapacity must be larger than capacity.
+     * Postcondition: Returns a capacity that is at least minCapacity.
+     * @param capacity    | The current length of the array.
+     * @param minCapacity | The smallest length that fits all of the elements.
+     * @return int        | The new length of the array.
+     */
+    int newCapacity(int capacity, int minCapacity);
+
+    /**
+     * Creates a policy that grows the array by a fixed amount of slots.
+     * Precondition: chunk must be larger than 0.
+     * Postcondition: Returns a policy that adds chunk slots to the capacity.
+     * @param chunk          | The amount of slots to add each time the array grows.
+     * @return GrowthPolicy  | The fixed chunk policy.
+     */
+    static GrowthPolicy fixedChunk(int chunk) {
+        if (chunk <= 0) {
+            throw new IllegalArgumentException("The chunk must be greater than 0.");
+        }
+
+        return (capacity, minCapacity) -> atLeast(capacity + chunk, minCapacity);
+    }
+
+    /**
+     * Makes sure that the computed capacity fits the elements.
+     * Precondition: minCapacity must be positive.
+     * Postcondition: Returns minCapacity if the computed capacity is smaller or if it
+     * overflowed into a negative number; otherwise returns the computed capacity.
+     * @param computed    | The capacity computed by a policy.
+     * @param minCapacity | The smallest length that fits all of the elements.
+     * @return int        | The capacity to use.
+     */
+    static int atLeast(int computed, int minCapacity) {
+        return computed < minCapacity ? minCapacity : computed;
+    }
+}
@@ -0,0 +1,218 @@
+import java.util.Objects;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that stores primitive longs.
+ *
+ * Data Structures used: Array
+ *
+ * Solution to the problem: ArrayListDC stores everything as an Object, so every
+ * long that is added to it is boxed into a Long and every find() calls equals()
+ * on those wrappers. The LongArrayListDC class stores the values directly in a
+ * long[] array. It has the same methods as ArrayListDC:
+ * 1). add longs to the end of the arrayList array: void add(long x)
+ * 2). add longs to a specific index location: void add(int index, long x)
+ * 3). get the long from a specific index location: long get(int index)
+ * 4). check to see how many elements are in the arrayList: int size()
+ * 5). check to see if the arrayList is empty: boolean isEmpty()
+ * 6). check to see if a long exists within the array: boolean isIn(long n)
+ * 7). get the index location of a specific long: int find(long n)
+ * 8). remove the first occurrence of a long from the array: void remove(long n)
+ *
+ * To use the class: Instantiate the LongArrayListDC class and either pass an initial
+ * size or leave blank for a default size of 10.
+ */
+public class LongArrayListDC {
+
+    /**
+     * Stores the values in an array
+     */
+    private long[] arrayList;
+
+    /**
+     * The current amount of elements in the arrayList array
+     */
+    private int elementsInArray;
+
+    /**
+     * The default constructor that creates an arrayList with a default size of 10.
+     * Precondition: Must instantiate the class without passing a value.
+     * Postcondition: Initializes the arrayList array with a default size of 10.
+     */
+    public LongArrayListDC() {
+        this(10);
+    }
+
+    /**
+     * Constructor that allows an initial size to be passed to the array.
+     * Precondition: Parameter n must be larger than 0.
+     * Postcondition: The constructor initializes the arrayList data field with size n
+     * and initializes the elementsInArray to 0.
+     * @param n | The size of the arrayList array.
+     */
+    public LongArrayListDC(int n) {
+        if (n <= 0) {
+            System.out.println("The size must be greater than 0. Try again.");
+            return;
+        }
+
+        this.arrayList = new long[n];
+        this.elementsInArray = 0;
+    }
+
+    /**
+     * Places a long at the end of the LongArrayListDC.
+     * Precondition: Must pass a parameter x of type long.
+     * Postcondition: Doubles the capacity if the array is full, stores x after the last
+     * element and increments elementsInArray by 1.
+     * @param x | The value to be added to the arrayList array.
+     */
+    public void add(long x) {
+        if (checkIfArrayFull()) {
+            grow();
+        }
+
+        this.arrayList[this.elementsInArray] = x;
+        this.elementsInArray++;
+    }
+
+    /**
+     * Places a long at a given location.
+     * Precondition: Must pass an index between 0 and size() inclusive and the value to insert.
+     * Postcondition: If the index is out of bounds, an IndexOutOfBoundsException is thrown.
+     * Doubles the capacity if the array is full. The elements from index to the last element
+     * are shifted one position to the right with System.arraycopy, x is stored at index and
+     * elementsInArray is incremented by 1.
+     * @param index | The position where the new value should be added.
+     * @param x     | The value that should be added to arrayList at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or greater than size()
+     */
+    public void add(int index, long x) {
+        if (index < 0 || index > this.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.elementsInArray);
+        }
+
+        if (checkIfArrayFull()) {
+            grow();
+        }
+
+        System.arraycopy(this.arrayList, index, this.arrayList, index + 1, this.elementsInArray - index);
+        this.arrayList[index] = x;
+        this.elementsInArray++;
+    }
+
+    /**
+     * Retrieves the value at a given location.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Otherwise the value at the index location is returned.
+     * @param index | The index location of the value.
+     * @return long | The value at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public long get(int index) {
+        return this.arrayList[Objects.checkIndex(index, this.elementsInArray)];
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list.
+     * Precondition: The LongArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns the value of the elementsInArray field.
+     * @return elementsInArray value.
+     */
+    public int size() {
+        return this.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the list is empty.
+     * Precondition: The LongArrayListDC object must be instantiated in the user program.
+     * Postcondition: Returns true if there are zero elements in the arrayList array.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return this.elementsInArray == 0;
+    }
+
+    /**
+     * Sees if a particular value exists in the arrayList.
+     * Precondition: Must pass a parameter of type long.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param n | The value to look for.
+     * @return boolean | True if the value exists, false otherwise.
+     */
+    public boolean isIn(long n) {
+        return find(n) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of a value starting from location 0.
+     * Precondition: Must pass a parameter of type long.
+     * Postcondition: Scans the elements that are in the list. If the value is found, its
+     * position is returned. Otherwise, -1 is returned.
+     * @param n  | The value that the method will search for in arrayList
+     * @return i | The position of the value n within the arrayList array
+     */
+    public int find(long n) {
+        // Invariant: 0 <= i < elementsInArray
+        for (int i = 0; i < this.elementsInArray; i++) {
+            if (this.arrayList[i] == n) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the first occurrence of a value starting from location 0.
+     * Precondition: Must pass the value n to be removed.
+     * Postcondition: If the value exists, the elements after it are shifted one position to
+     * the left with System.arraycopy and elementsInArray is decremented by 1.
+     * @param n | The value to be removed from the arrayList array
+     */
+    public void remove(long n) {
+        int index = find(n);
+
+        if (index < 0) {
+            return;
+        }
+
+        System.arraycopy(this.arrayList, index + 1, this.arrayList, index, this.elementsInArray - index - 1);
+        this.elementsInArray--;
+    }
+
+    /**
+     * Checks to see if the arrayList array is full.
+     * Precondition: The elementsInArray and arrayList data fields have to be initialized
+     * Postcondition: Returns true if elementsInArray is equal to the size of the arrayList array.
+     * @return boolean
+     */
+    private boolean checkIfArrayFull() {
+        return this.arrayList.length == this.elementsInArray;
+    }
+
+    /**
+     * Grows the arrayList array by one element or more.
+     * Precondition: The arrayList array must be full.
+     * Postcondition: GrowthPolicy.DOUBLE computes the new capacity, so once doubling would
+     * overflow an int the array grows by only the one slot that is needed instead of
+     * failing with a NegativeArraySizeException.
+     */
+    private void grow() {
+        copyArray(GrowthPolicy.DOUBLE.newCapacity(this.arrayList.length, this.elementsInArray + 1));
+    }
+
+    /**
+     * Copies the arrayList array into a new array of the given capacity.
+     * Precondition: The capacity must be at least elementsInArray.
+     * Postcondition: The arrayList data field points to the new, larger array.
+     * @param capacity | The length of the new array.
+     */
+    private void copyArray(int capacity) {
+        long[] tempArray = new long[capacity];
+        System.arraycopy(this.arrayList, 0, tempArray, 0, this.elementsInArray);
+        this.arrayList = tempArray;
+    }
+}
@@ -0,0 +1,479 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that is stored in a file instead
+ * of on the heap.
+ *
+ * Data Structures used: Memory mapped file
+ *
+ * Solution to the problem: ArrayListDC keeps every element on the heap, so a list can't
+ * be larger than the heap and every element adds to the garbage collector's work. The
+ * MappedArrayListDC class stores each element as a fixed size record in a file. The file
+ * is mapped into memory in segments of SEGMENT_BYTES with FileChannel.map(), so the
+ * operating system pages the records in and out and lists can be many gigabytes long.
+ * The last segment is mapped only as large as the list needs, starting at MIN_MAP_BYTES
+ * and doubling, so a small list does not make the file SEGMENT_BYTES long.
+ * A Serializer converts the elements to and from their records. The file starts with a
+ * header that stores the record size and the amount of elements, so the list is still
+ * there when the file is opened again after a restart.
+ *
+ *   | magic | recordSize | size |  record 0 | record 1 | ... | record n - 1 |
+ *
+ * The class has the same methods as ArrayListDC:
+ * 1). add Objects to the end of the list: void add(Object x)
+ * 2). add Objects to a specific index location: void add(long index, Object x)
+ * 3). get the object from a specific index location: Object get(long index)
+ * 4). check to see how many elements are in the list: long size()
+ * 5). check to see if the list is empty: boolean isEmpty()
+ * 6). check to see if an object exists within the list: boolean isIn(Object ob)
+ * 7). get the index location of a specific object: long find(Object n)
+ * 8). remove the object from the list: void remove(Object n)
+ * Call flush() to force the changes to disk and close() when done with the list.
+ *
+ * To use the class: Instantiate the MappedArrayListDC class with the path of the file and
+ * a Serializer, i.e. new MappedArrayListDC(path, MappedArrayListDC.LONG). If the file
+ * exists, the list stored in it is opened.
+ */
+public class MappedArrayListDC implements Closeable {
+
+    /**
+     * Converts elements to and from fixed size records. Records are read and written at an
+     * absolute offset of the buffer so that no buffer views have to be created.
+     */
+    public interface Serializer {
+
+        /**
+         * Returns the amount of bytes in each record.
+         * @return int
+         */
+        int recordSize();
+
+        /**
+         * Writes the Object as a record.
+         * @param x      | The Object to write.
+         * @param buffer | The buffer to write to.
+         * @param offset | The offset of the record in the buffer.
+         */
+        void write(Object x, ByteBuffer buffer, int offset);
+
+        /**
+         * Reads the Object stored in a record.
+         * @param buffer  | The buffer to read from.
+         * @param offset  | The offset of the record in the buffer.
+         * @return Object
+         */
+        Object read(ByteBuffer buffer, int offset);
+    }
+
+    /** Stores Long elements in 8 byte records */
+    public static final Serializer LONG = new Serializer() {
+        public int recordSize() {
+            return Long.BYTES;
+        }
+
+        public void write(Object x, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, (Long) x);
+        }
+
+        public Object read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Creates a Serializer that stores String elements as UTF-8 with a 2 byte length.
+     * Precondition: maxBytes must be between 1 and 65535.
+     * Postcondition: Returns a Serializer whose records are maxBytes + 2 bytes long. Writing a
+     * String longer than maxBytes in UTF-8 throws an IllegalArgumentException.
+     * @param maxBytes     | The largest encoded String that fits in a record.
+     * @return Serializer
+     */
+    public static Serializer fixedString(int maxBytes) {
+        if (maxBytes <= 0 || maxBytes > 0xFFFF) {
+            throw new IllegalArgumentException("maxBytes must be between 1 and 65535.");
+        }
+
+        return new Serializer() {
+            public int recordSize() {
+                return maxBytes + 2;
+            }
+
+            public void write(Object x, ByteBuffer buffer, int offset) {
+                byte[] bytes = ((String) x).getBytes(StandardCharsets.UTF_8);
+
+                if (bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("The String is longer than " + maxBytes + " bytes.");
+                }
+
+                buffer.putShort(offset, (short) bytes.length);
+                buffer.put(offset + 2, bytes);
+            }
+
+            public Object read(ByteBuffer buffer, int offset) {
+                byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+                buffer.get(offset + 2, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /** The length of each mapped segment of the file */
+    private static final int SEGMENT_BYTES = 1 << 26;
+
+    /** The smallest length that the last segment is mapped with */
+    private static final int MIN_MAP_BYTES = 1 << 12;
+
+    /** Identifies the file as a MappedArrayListDC file; "ALDC" */
+    private static final int MAGIC = 0x414C4443;
+
+    /** The length of the header: magic, record size and size */
+    private static final int HEADER_BYTES = 16;
+
+    /** The offset of the size in the header */
+    private static final int SIZE_OFFSET = 8;
+
+    /** The file that stores the list */
+    private final FileChannel channel;
+
+    /** Converts the elements to and from records */
+    private final Serializer serializer;
+
+    /** The amount of bytes in each record */
+    private final int recordSize;
+
+    /** The amount of records in each segment */
+    private final int recordsPerSegment;
+
+    /** The mapped header of the file */
+    private final MappedByteBuffer header;
+
+    /** The mapped segments of the file */
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /** The current amount of elements in the list */
+    private long elementsInArray;
+
+    /** The amount of records that the mapped segments can hold */
+    private long capacity;
+
+    /** Holds a record while it's copied to another location */
+    private final byte[] recordBytes;
+
+    /**
+     * Opens or creates a list stored in a file.
+     * Precondition: Must pass the path of the file and a Serializer. If the file exists, it must
+     * have been created with a Serializer of the same record size.
+     * Postcondition: Opens the file for reading and writing and maps the header. If the file is
+     * new, the header is written. Otherwise the header is checked and the size is read from it;
+     * a size that is negative or larger than the records the file can hold is rejected. Every
+     * segment that holds an element is mapped.
+     * @param path       | The file that stores the list.
+     * @param serializer | Converts the elements to and from records.
+     * @throws IOException if the file can't be opened, isn't a list with the same record size or
+     *                     has an invalid size in its header
+     */
+    public MappedArrayListDC(Path path, Serializer serializer) throws IOException {
+        this.serializer = serializer;
+        this.recordSize = serializer.recordSize();
+
+        if (this.recordSize <= 0 || this.recordSize > SEGMENT_BYTES) {
+            throw new IllegalArgumentException("The record size must be between 1 and " + SEGMENT_BYTES + ".");
+        }
+
+        this.recordsPerSegment = SEGMENT_BYTES / this.recordSize;
+        this.recordBytes = new byte[this.recordSize];
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        long fileSize = this.channel.size();
+        boolean isNew = fileSize == 0;
+        this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+        if (isNew) {
+            this.header.putInt(0, MAGIC);
+            this.header.putInt(4, this.recordSize);
+            this.header.putLong(SIZE_OFFSET, 0);
+        } else if (this.header.getInt(0) != MAGIC || this.header.getInt(4) != this.recordSize) {
+            this.channel.close();
+            throw new IOException(path + " is not a list with records of " + this.recordSize + " bytes.");
+        }
+
+        long size = this.header.getLong(SIZE_OFFSET);
+
+        if (size < 0 || (!isNew && size > (fileSize - HEADER_BYTES) / this.recordSize)) {
+            this.channel.close();
+            throw new IOException(path + " has an invalid size in its header: " + size + ".");
+        }
+
+        this.elementsInArray = size;
+        ensureCapacity(this.elementsInArray);
+    }
+
+    /**
+     * Places an Object at the end of the list.
+     * Precondition: Must pass an Object that the Serializer can write.
+     * Postcondition: Maps another segment if the mapped segments are full, writes the record
+     * after the last element and stores the new size in the header.
+     * @param x | The object to be added to the list.
+     * @throws IOException if the file can't grow
+     */
+    public void add(Object x) throws IOException {
+        ensureCapacity(this.elementsInArray + 1);
+        write(this.elementsInArray, x);
+        setSize(this.elementsInArray + 1);
+    }
+
+    /**
+     * Places an Object at a given location.
+     * Precondition: Must pass an index between 0 and size() inclusive and the Object to insert.
+     * Postcondition: Throws an IndexOutOfBoundsException if the index is out of bounds. The
+     * records from index to the last element are moved one record to the right, starting
+     * with the last one, the Object is written at index and the new size is stored.
+     * @param index | The position where the new Object should be added.
+     * @param x     | The object that should be added at the specific index.
+     * @throws IOException if the file can't grow
+     */
+    public void add(long index, Object x) throws IOException {
+        if (index < 0 || index > this.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.elementsInArray);
+        }
+
+        ensureCapacity(this.elementsInArray + 1);
+
+        // Invariant: index < i <= elementsInArray
+        for (long i = this.elementsInArray; i > index; i--) {
+            copyRecord(i - 1, i);
+        }
+
+        write(index, x);
+        setSize(this.elementsInArray + 1);
+    }
+
+    /**
+     * Retrieves the Object at a given location.
+     * Precondition: Must pass an index that's within the list bounds.
+     * Postcondition: Throws an IndexOutOfBoundsException if the index is out of bounds.
+     * Otherwise the record is read by the Serializer and returned.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     */
+    public Object get(long index) {
+        if (index < 0 || index >= this.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.elementsInArray);
+        }
+
+        return this.serializer.read(segment(index), offset(index));
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list.
+     * @return long
+     */
+    public long size() {
+        return this.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the list is empty.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return this.elementsInArray == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the list.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Reads each record and compares it with equals(). If the Object is found,
+     * its position is returned. Otherwise, -1 is returned.
+     * @param n   | The Object that the method will search for.
+     * @return i  | The position of the Object n within the list.
+     */
+    public long find(Object n) {
+        // Invariant: 0 <= i < elementsInArray
+        for (long i = 0; i < this.elementsInArray; i++) {
+            if (n.equals(this.serializer.read(segment(i), offset(i)))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass the Object n as a parameter to be removed.
+     * Postcondition: If the Object exists, the records after it are moved one record to the
+     * left and the new size is stored in the header.
+     * @param n | The Object to be removed from the list.
+     */
+    public void remove(Object n) {
+        long index = find(n);
+
+        if (index < 0) {
+            return;
+        }
+
+        // Invariant: index <= i < elementsInArray - 1
+        for (long i = index; i < this.elementsInArray - 1; i++) {
+            copyRecord(i + 1, i);
+        }
+
+        setSize(this.elementsInArray - 1);
+    }
+
+    /**
+     * Forces every change to the list to be written to the file.
+     * Precondition: The list must be open.
+     * Postcondition: The header and every mapped segment are written to the storage device.
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+
+        this.header.force();
+    }
+
+    /**
+     * Writes the changes to the file and closes it.
+     * Precondition: The list must be open.
+     * Postcondition: Calls flush() and closes the file. The list can't be used afterwards.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        this.segments = new MappedByteBuffer[0];
+        this.channel.close();
+    }
+
+    /**
+     * Maps segments until the list can hold the given amount of elements.
+     * Precondition: The file must be open.
+     * Postcondition: Every segment before the last one that is needed maps SEGMENT_BYTES of the
+     * file. The last one maps at least MIN_MAP_BYTES, doubling up to SEGMENT_BYTES, so the file
+     * only grows as the list does. Mapping extends the file if it's shorter. A segment that is
+     * too short is mapped again with the new length; the records in it are not copied, since
+     * both mappings share the same file.
+     * @param capacity | The amount of elements the list should be able to hold.
+     * @throws IOException if the file can't be mapped
+     */
+    private void ensureCapacity(long capacity) throws IOException {
+        if (capacity <= this.capacity) {
+            return;
+        }
+
+        int needed = (int) ((capacity + this.recordsPerSegment - 1) / this.recordsPerSegment);
+        int mapped = this.segments.length;
+        this.segments = Arrays.copyOf(this.segments, needed);
+
+        // Invariant: the segments before i can hold their share of capacity
+        for (int i = Math.max(mapped - 1, 0); i < needed; i++) {
+            long records = this.recordsPerSegment;
+
+            if (i == needed - 1) {
+                records = lastSegmentRecords(capacity - (long) i * this.recordsPerSegment);
+            }
+
+            if (this.segments[i] != null && this.segments[i].capacity() >= records * this.recordSize) {
+                continue;
+            }
+
+            long position = HEADER_BYTES + (long) i * this.recordsPerSegment * this.recordSize;
+            this.segments[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, position,
+                    records * this.recordSize);
+        }
+
+        this.capacity = (long) (needed - 1) * this.recordsPerSegment
+                + this.segments[needed - 1].capacity() / this.recordSize;
+    }
+
+    /**
+     * Returns the amount of records to map in the last segment.
+     * Precondition: records must be between 1 and recordsPerSegment.
+     * Postcondition: Rounds the length of the records up to a power of two of at least
+     * MIN_MAP_BYTES, and caps it at the length of a full segment.
+     * @param records | The amount of records the last segment has to hold.
+     * @return long   | The amount of records to map.
+     */
+    private long lastSegmentRecords(long records) {
+        long bytes = Math.max(records * this.recordSize, MIN_MAP_BYTES);
+        long powerOfTwo = Long.highestOneBit(bytes);
+
+        if (powerOfTwo < bytes) {
+            powerOfTwo <<= 1;
+        }
+
+        return Math.min(powerOfTwo / this.recordSize, this.recordsPerSegment);
+    }
+
+    /**
+     * Writes an Object in the record at a given location.
+     * @param index | The location of the record.
+     * @param x     | The Object to write.
+     */
+    private void write(long index, Object x) {
+        this.serializer.write(x, segment(index), offset(index));
+    }
+
+    /**
+     * Copies the bytes of one record into another record.
+     * Postcondition: The record is read into recordBytes with one bulk get() and written with
+     * one bulk put().
+     * @param from | The location of the record to copy.
+     * @param to   | The location of the record to overwrite.
+     */
+    private void copyRecord(long from, long to) {
+        segment(from).get(offset(from), this.recordBytes);
+        segment(to).put(offset(to), this.recordBytes);
+    }
+
+    /**
+     * Stores the amount of elements in the field and in the header.
+     * @param size | The new amount of elements.
+     */
+    private void setSize(long size) {
+        this.elementsInArray = size;
+        this.header.putLong(SIZE_OFFSET, size);
+    }
+
+    /**
+     * Returns the segment that holds the record at a given location.
+     * @param index | The location of the record.
+     * @return MappedByteBuffer
+     */
+    private MappedByteBuffer segment(long index) {
+        return this.segments[(int) (index / this.recordsPerSegment)];
+    }
+
+    /**
+     * Returns the offset of the record at a given location within its segment.
+     * @param index | The location of the record.
+     * @return int
+     */
+    private int offset(long index) {
+        return (int) (index % this.recordsPerSegment) * this.recordSize;
+    }
+}
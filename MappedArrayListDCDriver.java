@@ -0,0 +1,66 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: Tests the MappedArrayListDC class.
+ *
+ * How to use the program: Just run it. The list is stored in a temporary file that is
+ * deleted at the end.
+ */
+public class MappedArrayListDCDriver {
+
+    /**
+     * Tests the MappedArrayListDC class
+     * Precondition: Must have MappedArrayListDC class in same folder
+     * Postcondition: Creates a list of Longs in a temporary file, adds, inserts and removes
+     * elements and closes it. Opens the same file again to show that the elements survived.
+     * Then does the same with a list of Strings.
+     * @param args
+     * @throws IOException if the temporary files can't be created
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("numbers", ".aldc");
+
+        try (MappedArrayListDC numbers = new MappedArrayListDC(file, MappedArrayListDC.LONG)) {
+            System.out.println("The MappedArrayListDC is empty: " + numbers.isEmpty());
+
+            for (long i = 0; i < 1000000; i++) {
+                numbers.add(i * 3);
+            }
+
+            numbers.add(0, -1L);
+            numbers.remove(300L);
+            System.out.println("The number of elements in the list is: " + numbers.size());
+        }
+
+        try (MappedArrayListDC numbers = new MappedArrayListDC(file, MappedArrayListDC.LONG)) {
+            System.out.println("After reopening, the number of elements is: " + numbers.size());
+            System.out.println("Element at index 0: " + numbers.get(0));
+            System.out.println("Element at index 101: " + numbers.get(101));
+            System.out.println("The index of 2999997 is " + numbers.find(2999997L));
+            System.out.println("Is 300 in the list? " + numbers.isIn(300L));
+        }
+
+        Files.delete(file);
+
+        Path names = Files.createTempFile("names", ".aldc");
+
+        try (MappedArrayListDC list = new MappedArrayListDC(names, MappedArrayListDC.fixedString(32))) {
+            list.add("Dino");
+            list.add("Cajic");
+            list.add(1, "Amira");
+            list.remove("Dino");
+        }
+
+        try (MappedArrayListDC list = new MappedArrayListDC(names, MappedArrayListDC.fixedString(32))) {
+            for (long i = 0; i < list.size(); i++) {
+                System.out.println("MappedArrayListDC[" + i + "] : " + list.get(i));
+            }
+        }
+
+        Files.delete(names);
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: Measures how many commands a PhoneDirectoryServer handles per second with many clients at once.
+ *
+ * Each client connects to the server and sends its commands one at a time, waiting for the whole reply before it
+ * sends the next one. A command is one of:
+ *   add      n First Last number   adds a record with a number no other client uses (write lock)
+ *   lookup   r number              looks up a record this client added (read lock)
+ *   search   m Last 0              searches for the last name of a record this client added (read lock)
+ * The percentage of reads is split evenly between lookups and searches; the first command of every client is an add.
+ * All clients start at the same time. The time of every command is recorded, and a table with the count, the
+ * throughput and the 50th, 99th and 99.9th percentile latencies in microseconds is printed per command and in total.
+ *
+ * How to use the program: Start a PhoneDirectoryServer and run
+ *   java PhoneDirectoryLoadClient [port] [clients] [commands per client] [percent reads]
+ * The defaults are port 7070, 16 clients, 10000 commands per client and 80 percent reads.
+ */
+public class PhoneDirectoryLoadClient {
+
+    /** The names of the commands, in the order of their rows */
+    private static final String[] COMMANDS = { "add", "lookup", "search" };
+
+    /** The index of the add command in COMMANDS */
+    private static final int ADD = 0;
+
+    /** The index of the lookup command in COMMANDS */
+    private static final int LOOKUP = 1;
+
+    /** The index of the search command in COMMANDS */
+    private static final int SEARCH = 2;
+
+    /** The amount of numbers from 200-000-0000 to 999-999-9999, which are the numbers the clients add */
+    private static final long NUMBERS = 8000000000L;
+
+    /** The connection of one client */
+    private final Socket socket;
+
+    /** Reads the replies */
+    private final BufferedReader in;
+
+    /** Writes the commands */
+    private final PrintWriter out;
+
+    /** Picks the commands and the records to read */
+    private final Random random;
+
+    /** The next number this client adds, counted from 200-000-0000 */
+    private long nextNumber;
+
+    /** The numbers this client added, packed into longs */
+    private final long[] added;
+
+    /** The numbers in the last names of the records this client added; Last followed by the first number tried */
+    private final long[] addedNames;
+
+    /** The amount of numbers in added and addedNames */
+    private int addedCount;
+
+    /**
+     * Connects a client to the server.
+     *
+     * Precondition: Must pass the port of a running server, the id of the client, the first number it may add and the
+     * amount of commands it will send.
+     * Postcondition: Reads the greeting of the server.
+     *
+     * @param port the port of the server.
+     * @param id the id of the client, which seeds its Random.
+     * @param firstNumber the first number the client adds, counted from 200-000-0000.
+     * @param commands the amount of commands the client will send.
+     * @throws IOException if the server can't be reached.
+     */
+    private PhoneDirectoryLoadClient(int port, int id, long firstNumber, int commands) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new PrintWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+        this.random = new Random(id);
+        this.nextNumber = firstNumber;
+        this.added = new long[commands];
+        this.addedNames = new long[commands];
+        readReply();
+    }
+
+    /**
+     * Runs the load test.
+     * Precondition: Must have a PhoneDirectoryServer running on the same machine.
+     * Postcondition: Starts the clients at the same time, waits for them to finish and prints the results.
+     * @param args Array; optionally the port, the amount of clients, the commands per client and the percent reads.
+     * @throws Exception if a client fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int readPercent = args.length > 3 ? Integer.parseInt(args[3]) : 80;
+
+        // Start at a random number so that a second run against the same server adds new numbers
+        long firstNumber = (long) (Math.random() * NUMBERS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = PhoneDirectoryServer.newSessionExecutor();
+        List<Future<long[][]>> results = new ArrayList<Future<long[][]>>(clients);
+
+        // Invariant: the clients before c have been started
+        for (int c = 0; c < clients; c++) {
+            PhoneDirectoryLoadClient client =
+                    new PhoneDirectoryLoadClient(port, c, firstNumber + (long) c * commands * 2, commands);
+            results.add(threads.submit(() -> client.run(commands, readPercent, start)));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+
+        long[][] latencies = new long[COMMANDS.length][];
+        Arrays.fill(latencies, new long[0]);
+
+        for (Future<long[][]> result : results) {
+            long[][] clientLatencies = result.get();
+
+            for (int k = 0; k < COMMANDS.length; k++) {
+                latencies[k] = concat(latencies[k], clientLatencies[k]);
+            }
+        }
+
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        threads.shutdown();
+
+        System.out.println(clients + " clients, " + commands + " commands each, " + readPercent + "% reads, " +
+                String.format(Locale.ROOT, "%.2f", seconds) + " s");
+        System.out.println(String.format(Locale.ROOT, "%-8s %10s %12s %10s %10s %10s",
+                "command", "count", "ops/s", "p50 us", "p99 us", "p99.9 us"));
+
+        long[] total = new long[0];
+
+        for (int k = 0; k < COMMANDS.length; k++) {
+            printRow(COMMANDS[k], latencies[k], seconds);
+            total = concat(total, latencies[k]);
+        }
+
+        printRow("total", total, seconds);
+    }
+
+    /**
+     * Sends the commands of this client.
+     *
+     * Precondition: Must pass the amount of commands, the percent reads and the latch that starts every client.
+     * Postcondition: Waits for the latch, sends the commands and quits.
+     *
+     * @param commands the amount of commands to send.
+     * @param readPercent the percentage of lookups and searches.
+     * @param start the latch that starts every client.
+     * @return long[][] the latencies in nanoseconds of each command, indexed like COMMANDS.
+     * @throws Exception if the connection fails.
+     */
+    private long[][] run(int commands, int readPercent, CountDownLatch start) throws Exception {
+        long[][] latencies = new long[COMMANDS.length][commands];
+        int[] counts = new int[COMMANDS.length];
+        start.await();
+
+        // Invariant: the commands before i have been answered
+        for (int i = 0; i < commands; i++) {
+            int command = ADD;
+
+            if (this.addedCount > 0 && this.random.nextInt(100) < readPercent) {
+                command = this.random.nextBoolean() ? LOOKUP : SEARCH;
+            }
+
+            long begin = System.nanoTime();
+
+            if (command == ADD) {
+                add(i);
+            } else {
+                int record = this.random.nextInt(this.addedCount);
+                send(command == LOOKUP ? "r " + this.added[record] : "m Last" + this.addedNames[record] + "\n0");
+                readReply();
+            }
+
+            latencies[command][counts[command]++] = System.nanoTime() - begin;
+        }
+
+        send("q");
+        readReply();
+        this.socket.close();
+
+        // Invariant: the arrays of the commands before k have been trimmed
+        for (int k = 0; k < COMMANDS.length; k++) {
+            latencies[k] = Arrays.copyOf(latencies[k], counts[k]);
+        }
+
+        return latencies;
+    }
+
+    /**
+     * Adds a record with the next number of this client.
+     *
+     * Precondition: Must pass the index of the command, which goes into the first name.
+     * Postcondition: If the server answers that the number exists, i.e. from an earlier run, the next number is sent
+     * until one is added. The number is stored in added and the number in the last name in addedNames.
+     *
+     * @param i the index of the command.
+     * @throws IOException if the connection fails.
+     */
+    private void add(int i) throws IOException {
+        long number = 2000000000L + this.nextNumber++ % NUMBERS;
+        long name = number;
+        send("n First" + i + " Last" + name + " " + number);
+        String line;
+
+        // Invariant: every number sent so far except the last one exists
+        while (!(line = readLine()).equals(phonedir.END_OF_REPLY)) {
+            if (line.startsWith("You may also enter 'q'")) {
+                number = 2000000000L + this.nextNumber++ % NUMBERS;
+                send(Long.toString(number));
+            }
+        }
+
+        this.added[this.addedCount] = number;
+        this.addedNames[this.addedCount] = name;
+        this.addedCount++;
+    }
+
+    /**
+     * Sends a command and flushes it.
+     * @param command the command and the answers to its prompts.
+     */
+    private void send(String command) {
+        this.out.print(command);
+        this.out.print('\n');
+        this.out.flush();
+    }
+
+    /**
+     * Reads the lines of a reply up to the line that ends it.
+     * @throws IOException if the connection fails.
+     */
+    private void readReply() throws IOException {
+        // Invariant: the lines read so far belong to the reply
+        while (!readLine().equals(phonedir.END_OF_REPLY)) {
+            continue;
+        }
+    }
+
+    /**
+     * Reads a line of a reply.
+     * @return String the line.
+     * @throws IOException if the server closed the connection.
+     */
+    private String readLine() throws IOException {
+        String line = this.in.readLine();
+
+        if (line == null) {
+            throw new IOException("The server closed the connection.");
+        }
+
+        return line;
+    }
+
+    /**
+     * Prints the row of a command.
+     * @param name the name of the command.
+     * @param latencies the latencies of the command in nanoseconds.
+     * @param seconds the length of the run in seconds.
+     */
+    private static void printRow(String name, long[] latencies, double seconds) {
+        Arrays.sort(latencies);
+        System.out.println(String.format(Locale.ROOT, "%-8s %10d %12.0f %10.1f %10.1f %10.1f",
+                name, latencies.length, latencies.length / seconds, percentile(latencies, 0.50) / 1e3,
+                percentile(latencies, 0.99) / 1e3, percentile(latencies, 0.999) / 1e3));
+    }
+
+    /**
+     * Returns a percentile of sorted latencies.
+     * @param sorted the latencies, sorted.
+     * @param p the percentile between 0 and 1.
+     * @return long the latency, or 0 if there are none.
+     */
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    /**
+     * Joins two arrays.
+     * @param a the first array.
+     * @param b the second array.
+     * @return long[] the elements of a followed by the elements of b.
+     */
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
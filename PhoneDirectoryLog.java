@@ -0,0 +1,414 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To store the records of the phone directory on disk so that they survive a restart.
+ *
+ * Data Structures Used: Append only file (write-ahead log), Memory mapped file
+ *
+ * The PhoneDirectoryLog class keeps two files next to each other:
+ *   <path>.snap  every record of the directory at the time of the last compaction
+ *   <path>.log   every change made since then, in the order it was made
+ * A change is one of two operations, both keyed by the phone number packed into a long:
+ *   PUT     the record with this phone number now has this first and last name
+ *   DELETE  the record with this phone number was removed
+ * Adding a record and changing a name are PUTs; changing a phone number is a PUT of the new number followed by a
+ * DELETE of the old one, so a crash between the two keeps the record under both numbers instead of losing it. Every
+ * operation is appended to the log and forced to disk before the method returns. Each log entry stores its length and
+ * a CRC32 checksum, so an entry that was only partly written when the program was killed is detected and cut off when
+ * the log is opened again.
+ *
+ * Since the last operation on a phone number decides its record, replaying the log is idempotent. compact() writes a
+ * new snapshot to a temporary file, renames it over the old snapshot and only then empties the log, so a crash at any
+ * point leaves a snapshot and a log that replay to the right directory.
+ *
+ * On startup load() maps the snapshot into memory with FileChannel.map() and reads the records straight out of the
+ * page cache, then replays the log, which holds only the changes since the last compaction.
+ *
+ *   snapshot: | magic | count | phone | first | last | ... | crc |
+ *   log:      | length | op | phone | first | last | crc | length | op | phone | crc | ...
+ *
+ * Names are stored as a 2 byte length followed by UTF-8 bytes.
+ */
+public class PhoneDirectoryLog implements Closeable {
+
+    /**
+     * Receives the records read by load().
+     */
+    public interface Replay {
+
+        /**
+         * Stores a record, replacing the record that had the same phone number.
+         * @param phone the phone number packed into a long.
+         * @param first the first name.
+         * @param last the last name.
+         */
+        void put(long phone, String first, String last);
+
+        /**
+         * Removes the record that has the phone number, if there is one.
+         * @param phone the phone number packed into a long.
+         */
+        void delete(long phone);
+    }
+
+    /** The operation code of a PUT entry */
+    private static final byte PUT = 1;
+
+    /** The operation code of a DELETE entry */
+    private static final byte DELETE = 2;
+
+    /** Identifies a snapshot file; "PDIR" */
+    private static final int MAGIC = 0x50444952;
+
+    /** The smallest amount of log entries that makes compactIfNeeded() write a snapshot */
+    private static final int MIN_COMPACT_ENTRIES = 1000;
+
+    /** The snapshot file */
+    private final Path snapshotPath;
+
+    /** The log file, opened for appending */
+    private final FileChannel log;
+
+    /** The amount of entries in the log */
+    private int logEntries;
+
+    /** Reused to build each log entry */
+    private ByteBuffer entry = ByteBuffer.allocate(256);
+
+    /**
+     * Opens the log and the snapshot that start with the given path.
+     *
+     * Precondition: Must pass the path of the files without an extension, i.e. data/phonedir.
+     * Postcondition: Creates the log file if it doesn't exist. Nothing is read until load() is called.
+     *
+     * @param path the path of the files without the .snap and .log extensions.
+     * @throws IOException if the log file can't be opened.
+     */
+    public PhoneDirectoryLog(String path) throws IOException {
+        this.snapshotPath = Paths.get(path + ".snap");
+        this.log = FileChannel.open(Paths.get(path + ".log"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Reads the directory back from disk.
+     *
+     * Precondition: Must be called once, before any change is appended.
+     * Postcondition: Maps the snapshot and passes each of its records to replay.put(). Then maps the log and passes
+     * each of its entries to replay.put() or replay.delete(). The log is cut off after the last complete entry whose
+     * checksum matches, and new entries are appended from there.
+     *
+     * @param replay receives the records.
+     * @throws IOException if a file can't be read or the snapshot is damaged.
+     */
+    public void load(Replay replay) throws IOException {
+        if (Files.exists(this.snapshotPath)) {
+            loadSnapshot(replay);
+        }
+
+        long size = this.log.size();
+        MappedByteBuffer buffer = this.log.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        int valid = 0;
+
+        // Invariant: the entries before valid are complete and have been replayed
+        while (size - valid >= Integer.BYTES) {
+            int length = buffer.getInt(valid);
+
+            // Compared in long arithmetic, so a damaged length near Integer.MAX_VALUE can't overflow the bound
+            if (length <= 0 || length > size - valid - 2 * Integer.BYTES) {
+                break;
+            }
+
+            int end = valid + Integer.BYTES + length;
+
+            crc.reset();
+            crc.update(buffer.slice(valid + Integer.BYTES, length));
+
+            if ((int) crc.getValue() != buffer.getInt(end)) {
+                break;
+            }
+
+            buffer.position(valid + Integer.BYTES);
+            byte op = buffer.get();
+            long phone = buffer.getLong();
+
+            if (op == PUT) {
+                replay.put(phone, readString(buffer), readString(buffer));
+            } else {
+                replay.delete(phone);
+            }
+
+            valid = end + Integer.BYTES;
+            this.logEntries++;
+        }
+
+        if (valid < size) {
+            this.log.truncate(valid);
+            this.log.force(false);
+        }
+
+        this.log.position(valid);
+    }
+
+    /**
+     * Appends a PUT entry to the log.
+     *
+     * Precondition: load() must have been called.
+     * Postcondition: The entry is on disk when the method returns.
+     *
+     * @param phone the phone number packed into a long.
+     * @param first the first name.
+     * @param last the last name.
+     * @throws IOException if the entry can't be written.
+     */
+    public void put(long phone, String first, String last) throws IOException {
+        byte[] firstBytes = first.getBytes(StandardCharsets.UTF_8);
+        byte[] lastBytes = last.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = startEntry(1 + Long.BYTES + 2 + firstBytes.length + 2 + lastBytes.length);
+        buffer.put(PUT).putLong(phone);
+        putString(buffer, firstBytes);
+        putString(buffer, lastBytes);
+        writeEntry(buffer);
+    }
+
+    /**
+     * Appends a DELETE entry to the log.
+     *
+     * Precondition: load() must have been called.
+     * Postcondition: The entry is on disk when the method returns.
+     *
+     * @param phone the phone number packed into a long.
+     * @throws IOException if the entry can't be written.
+     */
+    public void delete(long phone) throws IOException {
+        ByteBuffer buffer = startEntry(1 + Long.BYTES);
+        buffer.put(DELETE).putLong(phone);
+        writeEntry(buffer);
+    }
+
+    /**
+     * Writes a snapshot if the log has grown as large as the directory.
+     *
+     * Precondition: Must pass every record of the directory.
+     * Postcondition: If the log holds at least as many entries as there are records, and at least
+     * MIN_COMPACT_ENTRIES, compact() is called. Each compaction writes n records after at least n changes, so its
+     * cost is spread evenly over the changes.
+     *
+     * @param persons every record of the directory.
+     * @param count the amount of records.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public void compactIfNeeded(Iterable<phonedir.Person> persons, int count) throws IOException {
+        if (this.logEntries >= Math.max(count, MIN_COMPACT_ENTRIES)) {
+            compact(persons, count);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given records and empties the log.
+     *
+     * Precondition: Must pass every record of the directory and the amount of records.
+     * Postcondition: The records are written to <path>.snap.tmp, which is forced to disk and renamed over the
+     * snapshot. The directory is forced to disk as well, so the rename is durable before the log is truncated to zero
+     * entries; otherwise a power loss could keep the truncate and lose the rename.
+     *
+     * @param persons every record of the directory.
+     * @param count the amount of records.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public void compact(Iterable<phonedir.Person> persons, int count) throws IOException {
+        Path temp = Paths.get(this.snapshotPath + ".tmp");
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+
+            for (phonedir.Person person : persons) {
+                byte[] first = person.getFirstName().getBytes(StandardCharsets.UTF_8);
+                byte[] last = person.getLastName().getBytes(StandardCharsets.UTF_8);
+
+                if (buffer.capacity() < Long.BYTES + 4 + first.length + last.length) {
+                    buffer = ByteBuffer.allocate(Long.BYTES + 4 + first.length + last.length);
+                }
+
+                buffer.clear();
+                buffer.putLong(phonedir.packPhoneNumber(person.getPhoneNumber()));
+                putString(buffer, first);
+                putString(buffer, last);
+                crc.update(buffer.array(), 0, buffer.position());
+                out.write(buffer.array(), 0, buffer.position());
+            }
+
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(temp, this.snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(this.snapshotPath.toAbsolutePath().getParent());
+
+        this.log.truncate(0);
+        this.log.force(false);
+        this.log.position(0);
+        this.logEntries = 0;
+    }
+
+    /**
+     * Forces the entries of a directory, i.e. a rename, to disk.
+     *
+     * Precondition: Must pass the directory of the snapshot.
+     * Postcondition: Opens the directory for reading and forces it. Windows can't open a directory as a channel; there
+     * the rename is left to the file system.
+     *
+     * @param directory the directory to force.
+     * @throws IOException if the directory can't be forced.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+
+        try (FileChannel dir = channel) {
+            dir.force(true);
+        }
+    }
+
+    /**
+     * Closes the log file. Every entry is already on disk.
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.log.close();
+    }
+
+    /**
+     * Maps the snapshot and passes each of its records to replay.put().
+     *
+     * @param replay receives the records.
+     * @throws IOException if the snapshot can't be read or its checksum doesn't match.
+     */
+    private void loadSnapshot(Replay replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.snapshotPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("The snapshot is larger than 2 GB: " + this.snapshotPath);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (size < 3 * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a phone directory snapshot: " + this.snapshotPath);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(2 * Integer.BYTES, (int) size - 3 * Integer.BYTES));
+
+            if ((int) crc.getValue() != buffer.getInt((int) size - Integer.BYTES)) {
+                throw new IOException("The snapshot is damaged: " + this.snapshotPath);
+            }
+
+            int count = buffer.getInt(Integer.BYTES);
+            buffer.position(2 * Integer.BYTES);
+
+            // Invariant: records 0 through i - 1 have been replayed
+            for (int i = 0; i < count; i++) {
+                long phone = buffer.getLong();
+                replay.put(phone, readString(buffer), readString(buffer));
+            }
+        }
+    }
+
+    /**
+     * Returns the reused entry buffer, large enough for the body and the length and checksum around it.
+     *
+     * @param bodyLength the amount of bytes in the body of the entry.
+     * @return ByteBuffer positioned after the length.
+     */
+    private ByteBuffer startEntry(int bodyLength) {
+        if (this.entry.capacity() < bodyLength + 2 * Integer.BYTES) {
+            this.entry = ByteBuffer.allocate(bodyLength + 2 * Integer.BYTES);
+        }
+
+        this.entry.clear();
+        this.entry.putInt(bodyLength);
+        return this.entry;
+    }
+
+    /**
+     * Adds the checksum to an entry, appends it to the log and forces it to disk.
+     *
+     * @param buffer the entry returned by startEntry() with the body written.
+     * @throws IOException if the entry can't be written.
+     */
+    private void writeEntry(ByteBuffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), Integer.BYTES, buffer.position() - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            this.log.write(buffer);
+        }
+
+        this.log.force(false);
+        this.logEntries++;
+    }
+
+    /**
+     * Writes a 2 byte length followed by the bytes.
+     *
+     * @param buffer the buffer to write to.
+     * @param bytes the UTF-8 bytes of a name.
+     * @throws IllegalArgumentException if the name is longer than 65535 bytes.
+     */
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("A name can't be longer than 65535 bytes.");
+        }
+
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a 2 byte length followed by that many UTF-8 bytes.
+     *
+     * @param buffer the buffer to read from, positioned at the length.
+     * @return String
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,460 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To find the records of the phone directory from the start of a name, or from a name that is misspelled.
+ *
+ * Data Structures Used: TreeMap, Hash Table (trigram index)
+ *
+ * The PhoneDirectorySearch class keeps three indexes of the records, all in lower case:
+ *   byLast     a TreeMap from "last\0first\0phone" to the record. All the records whose last name starts with a prefix
+ *              are next to each other, so prefixSearch() reads them with subMap() in O(log n + k).
+ *   byFirst    the same with "first\0last\0phone", for the records whose first name starts with a prefix.
+ *   trigrams   a hash table from every 3 letter piece of a name (a trigram) to the distinct names that contain it.
+ *              Names are padded with two spaces in front and one after, so "lee" has the trigrams "  l", " le", "lee"
+ *              and "ee ". A misspelled name still shares most of its trigrams with the right one, so fuzzySearch()
+ *              only has to look at the names that share a trigram with the query and rank them by how many they share.
+ * The trigram index holds each distinct name once, no matter how many records have it, so it stays small even when
+ * there are millions of records. Trigrams such as the padding "  s" or "ast" are in a large share of all names, so
+ * fuzzySearch() reads the names of the rarest trigrams of the query first and stops after MAX_SCANNED_NAMES; the
+ * common trigrams are only checked for the names found that way. Both searches return at most k records, and only
+ * the best ones are kept in a bounded heap instead of sorting every name that was scored.
+ *
+ * To use the class: Call add() for every record, remove() before the name or phone number of a record changes and
+ * add() again after it changed.
+ */
+public class PhoneDirectorySearch {
+
+    /** The smallest trigram similarity, between 0 and 1, for a name to be a fuzzy match */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    /** The most records fuzzySearch() looks at for each record it returns */
+    private static final int CANDIDATES_PER_RESULT = 20;
+
+    /**
+     * Spreads the bits of a packed trigram. Long.hashCode() XORs the high and the low half, so without it "548" and
+     * "845" hash the same and the hash tables fill with collisions; multiplying by an odd number keeps the keys unique.
+     */
+    private static final long TRIGRAM_MIX = 0x9E3779B97F4A7C15L;
+
+    /** The most names fuzzySearch() reads from the trigram index for a query */
+    private static final int MAX_SCANNED_NAMES = 20000;
+
+    /** The records by last name, then first name, then phone number */
+    private final TreeMap<String, phonedir.Person> byLast = new TreeMap<String, phonedir.Person>();
+
+    /** The records by first name, then last name, then phone number */
+    private final TreeMap<String, phonedir.Person> byFirst = new TreeMap<String, phonedir.Person>();
+
+    /** Each distinct first or last name */
+    private final HashMap<String, Name> names = new HashMap<String, Name>();
+
+    /** The distinct names that contain each trigram; a trigram is packed into a long by trigramsOf() */
+    private final HashMap<Long, HashSet<String>> trigrams = new HashMap<Long, HashSet<String>>();
+
+    /**
+     * Adds a record to the indexes.
+     *
+     * Precondition: The record must not be in the indexes.
+     * Postcondition: The record can be found by its first name, last name and trigrams.
+     *
+     * @param person the record to add.
+     */
+    public void add(phonedir.Person person) {
+        String first = person.getFirstName().toLowerCase(Locale.ROOT);
+        String last = person.getLastName().toLowerCase(Locale.ROOT);
+
+        this.byLast.put(person.getSortKey(), person);
+        this.byFirst.put(firstKey(person), person);
+        addName(first);
+        addName(last);
+    }
+
+    /**
+     * Removes a record from the indexes.
+     *
+     * Precondition: The record must have the same name and phone number it had when it was added.
+     * Postcondition: The record can no longer be found. A name that no other record uses is removed from the trigram
+     * index.
+     *
+     * @param person the record to remove.
+     */
+    public void remove(phonedir.Person person) {
+        this.byLast.remove(person.getSortKey());
+        this.byFirst.remove(firstKey(person));
+        removeName(person.getFirstName().toLowerCase(Locale.ROOT));
+        removeName(person.getLastName().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the records whose name starts with the query.
+     *
+     * Precondition: Must pass the query and the most records to return.
+     * Postcondition: The query is split into words and case folded. With one word, the records whose last name starts
+     * with it are returned first, then the records whose first name starts with it. With two words, the records with
+     * the first word as the last name and a first name that starts with the second word are returned first, then the
+     * records with the first word as the first name and a last name that starts with the second word. Each group is in
+     * order and no record is returned twice.
+     *
+     * @param query one or two words, i.e. "caj" or "cajic di".
+     * @param k the most records to return.
+     * @return ArrayList the matching records.
+     */
+    public ArrayList<phonedir.Person> prefixSearch(String query, int k) {
+        String[] words = words(query);
+        LinkedHashSet<phonedir.Person> found = new LinkedHashSet<phonedir.Person>();
+
+        if (words.length == 1) {
+            addRange(this.byLast, words[0], found, k);
+            addRange(this.byFirst, words[0], found, k);
+        } else if (words.length > 1) {
+            addRange(this.byLast, words[0] + '\0' + words[1], found, k);
+            addRange(this.byFirst, words[0] + '\0' + words[1], found, k);
+        }
+
+        return new ArrayList<phonedir.Person>(found);
+    }
+
+    /**
+     * Returns the records whose names are most similar to the query.
+     *
+     * Precondition: Must pass the query and the most records to return.
+     * Postcondition: The names that are most similar to the first word are found by similarNames(), and the records of
+     * the best of them are collected, at most k * CANDIDATES_PER_RESULT. Each record scores, for every word, the best
+     * Dice coefficient of its first and last name, 2 * shared trigrams / (trigrams of the word + trigrams of the name),
+     * or 0 below MIN_SIMILARITY. The k records with the highest total are returned, best first.
+     *
+     * @param query one or more words, i.e. "cajik".
+     * @param k the most records to return.
+     * @return ArrayList the matching records.
+     */
+    public ArrayList<phonedir.Person> fuzzySearch(String query, int k) {
+        String[] words = words(query);
+
+        if (words.length == 0) {
+            return new ArrayList<phonedir.Person>();
+        }
+
+        ArrayList<HashSet<Long>> wordTrigrams = new ArrayList<HashSet<Long>>();
+
+        for (String word : words) {
+            wordTrigrams.add(trigramsOf(word));
+        }
+
+        int maxCandidates = k * CANDIDATES_PER_RESULT;
+        ArrayList<String> best = similarNames(wordTrigrams.get(0), maxCandidates);
+        LinkedHashSet<phonedir.Person> candidates = new LinkedHashSet<phonedir.Person>();
+
+        // Invariant: candidates holds the records of the names before i, up to maxCandidates
+        for (int i = 0; i < best.size() && candidates.size() < maxCandidates; i++) {
+            String name = best.get(i);
+            addRange(this.byLast, name + '\0', candidates, maxCandidates);
+            addRange(this.byFirst, name + '\0', candidates, maxCandidates);
+        }
+
+        HashMap<String, HashSet<Long>> nameTrigrams = new HashMap<String, HashSet<Long>>();
+        HashMap<phonedir.Person, Double> total = new HashMap<phonedir.Person, Double>();
+
+        for (phonedir.Person person : candidates) {
+            HashSet<Long> first = nameTrigrams.computeIfAbsent(person.getFirstName().toLowerCase(Locale.ROOT),
+                    PhoneDirectorySearch::trigramsOf);
+            HashSet<Long> last = nameTrigrams.computeIfAbsent(person.getLastName().toLowerCase(Locale.ROOT),
+                    PhoneDirectorySearch::trigramsOf);
+            double sum = 0;
+
+            for (HashSet<Long> word : wordTrigrams) {
+                sum += Math.max(similarity(word, first), similarity(word, last));
+            }
+
+            total.put(person, sum);
+        }
+
+        return best(total, k, Comparator.comparing(phonedir.Person::getSortKey));
+    }
+
+    /**
+     * Returns the names that are most similar to a word.
+     *
+     * Precondition: Must pass the trigrams of a case folded word and the most names to return.
+     * Postcondition: The names that contain each trigram are read from the trigram index, rarest trigram first, until
+     * MAX_SCANNED_NAMES names were read; at least the rarest trigram is read. The names found that way are visited
+     * from the most trigrams found to the fewest. The remaining, common, trigrams are only looked up for a name whose
+     * Dice coefficient could still reach MIN_SIMILARITY and beat the n best coefficients so far if it had all of them,
+     * so most names are dropped without a lookup and the ones that are kept get their exact coefficient.
+     *
+     * @param wordTrigrams the trigrams of the word.
+     * @param n the most names to return.
+     * @return ArrayList the names with the highest coefficients, best first.
+     */
+    private ArrayList<String> similarNames(HashSet<Long> wordTrigrams, int n) {
+        ArrayList<HashSet<String>> lists = new ArrayList<HashSet<String>>();
+
+        for (Long trigram : wordTrigrams) {
+            HashSet<String> containing = this.trigrams.get(trigram);
+
+            if (containing != null) {
+                lists.add(containing);
+            }
+        }
+
+        lists.sort(Comparator.comparingInt(HashSet::size));
+
+        HashMap<String, Integer> shared = new HashMap<String, Integer>();
+        int scanned = 0;
+        int i = 0;
+
+        // Invariant: shared counts, for the names found so far, the lists before i that contain them
+        for (; i < lists.size() && (i == 0 || scanned + lists.get(i).size() <= MAX_SCANNED_NAMES); i++) {
+            for (String name : lists.get(i)) {
+                if (scanned++ >= MAX_SCANNED_NAMES) {
+                    break;
+                }
+
+                shared.merge(name, 1, Integer::sum);
+            }
+        }
+
+        ArrayList<ArrayList<String>> byCount = new ArrayList<ArrayList<String>>();
+
+        for (int c = 0; c <= i; c++) {
+            byCount.add(new ArrayList<String>());
+        }
+
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            byCount.get(entry.getValue()).add(entry.getKey());
+        }
+
+        HashMap<String, Double> scores = new HashMap<String, Double>();
+        PriorityQueue<Double> kept = new PriorityQueue<Double>();
+        int unscanned = lists.size() - i;
+
+        // Invariant: scores holds every name found in more than c of the scanned lists that may be among the n best
+        for (int c = i; c > 0; c--) {
+            for (String name : byCount.get(c)) {
+                int nameTrigrams = this.names.get(name).trigrams;
+                double bound = 2.0 * (c + unscanned) / (wordTrigrams.size() + nameTrigrams);
+
+                if (bound < MIN_SIMILARITY || (kept.size() == n && bound < kept.peek())) {
+                    continue;
+                }
+
+                int count = c;
+
+                for (int j = i; j < lists.size(); j++) {
+                    if (lists.get(j).contains(name)) {
+                        count++;
+                    }
+                }
+
+                double dice = 2.0 * count / (wordTrigrams.size() + nameTrigrams);
+
+                if (dice >= MIN_SIMILARITY) {
+                    scores.put(name, dice);
+                    kept.add(dice);
+
+                    if (kept.size() > n) {
+                        kept.poll();
+                    }
+                }
+            }
+        }
+
+        return best(scores, n, Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the Dice coefficient of a word and a name.
+     *
+     * @param word the trigrams of the word.
+     * @param name the trigrams of the name.
+     * @return double the coefficient, or 0 if it's below MIN_SIMILARITY.
+     */
+    private static double similarity(HashSet<Long> word, HashSet<Long> name) {
+        int shared = 0;
+
+        for (Long trigram : word) {
+            if (name.contains(trigram)) {
+                shared++;
+            }
+        }
+
+        double dice = 2.0 * shared / (word.size() + name.size());
+        return dice >= MIN_SIMILARITY ? dice : 0;
+    }
+
+    /**
+     * Returns the keys with the highest scores, best first.
+     *
+     * Precondition: Must pass the scores, the most keys to return and the order of keys with the same score.
+     * Postcondition: The keys pass through a min heap that never holds more than n of them, so only the best n are
+     * kept and ordered, in O(m log n) for m scores.
+     *
+     * @param scores the score of each key.
+     * @param n the most keys to return.
+     * @param ties the order of keys with the same score; the smaller key comes first.
+     * @return ArrayList the best keys.
+     */
+    private static <T> ArrayList<T> best(Map<T, Double> scores, int n, Comparator<? super T> ties) {
+        Comparator<Map.Entry<T, Double>> worstFirst = Map.Entry.<T, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(ties.reversed()));
+        PriorityQueue<Map.Entry<T, Double>> heap = new PriorityQueue<Map.Entry<T, Double>>(worstFirst);
+
+        for (Map.Entry<T, Double> entry : scores.entrySet()) {
+            if (heap.size() < n) {
+                heap.add(entry);
+            } else if (n > 0 && worstFirst.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        ArrayList<T> result = new ArrayList<T>(heap.size());
+
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().getKey());
+        }
+
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Adds the records whose key starts with a prefix, in order, until there are k records.
+     *
+     * @param index byLast or byFirst.
+     * @param prefix the start of the keys.
+     * @param found the records found so far.
+     * @param k the most records to find.
+     */
+    private static void addRange(TreeMap<String, phonedir.Person> index, String prefix,
+                                 LinkedHashSet<phonedir.Person> found, int k) {
+        for (phonedir.Person person : index.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            if (found.size() >= k) {
+                return;
+            }
+
+            found.add(person);
+        }
+    }
+
+    /**
+     * Counts one more record with a name, and adds the name to the trigram index if it's new.
+     *
+     * @param name the case folded name.
+     */
+    private void addName(String name) {
+        Name entry = this.names.get(name);
+
+        if (entry != null) {
+            entry.records++;
+            return;
+        }
+
+        HashSet<Long> nameTrigrams = trigramsOf(name);
+        this.names.put(name, new Name(nameTrigrams.size()));
+
+        for (Long trigram : nameTrigrams) {
+            this.trigrams.computeIfAbsent(trigram, t -> new HashSet<String>()).add(name);
+        }
+    }
+
+    /**
+     * Counts one less record with a name, and removes the name from the trigram index if no record uses it.
+     *
+     * @param name the case folded name.
+     */
+    private void removeName(String name) {
+        Name entry = this.names.get(name);
+
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.records > 1) {
+            entry.records--;
+            return;
+        }
+
+        this.names.remove(name);
+
+        for (Long trigram : trigramsOf(name)) {
+            HashSet<String> containing = this.trigrams.get(trigram);
+            containing.remove(name);
+
+            if (containing.isEmpty()) {
+                this.trigrams.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * A distinct first or last name.
+     */
+    private static class Name {
+
+        /** The amount of records that use the name as their first or last name */
+        int records = 1;
+
+        /** The amount of distinct trigrams in the name */
+        final int trigrams;
+
+        /**
+         * Creates the entry of a name that one record uses.
+         * @param trigrams the amount of distinct trigrams in the name.
+         */
+        Name(int trigrams) {
+            this.trigrams = trigrams;
+        }
+    }
+
+    /**
+     * Returns the distinct trigrams of a name padded with two spaces in front and one after.
+     *
+     * @param name the case folded name.
+     * @return HashSet of the trigrams, each packed into a long.
+     */
+    private static HashSet<Long> trigramsOf(String name) {
+        String padded = "  " + name + " ";
+        HashSet<Long> result = new HashSet<Long>();
+
+        // Invariant: the trigrams that start before i have been added
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long trigram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            result.add(trigram * TRIGRAM_MIX);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the key of a record in byFirst.
+     *
+     * @param person the record.
+     * @return String "first\0last\0phone" in lower case.
+     */
+    private static String firstKey(phonedir.Person person) {
+        return (person.getFirstName() + '\0' + person.getLastName() + '\0' + person.getPhoneNumber())
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a query into case folded words.
+     *
+     * @param query the query.
+     * @return String[] the words; empty if the query is blank.
+     */
+    private static String[] words(String query) {
+        String trimmed = query.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+}
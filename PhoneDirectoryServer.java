@@ -0,0 +1,186 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To let many operators use one phone directory at the same time.
+ *
+ * Data Structures Used: TreeSet, Hash Table, Write-ahead log, Read-write lock (through phonedir)
+ *
+ * The PhoneDirectoryServer listens on a local TCP port. Every client that connects gets a session: a phonedir that
+ * has its own current record and shares the records, the indexes and the log with every other session. The sessions
+ * run on virtual threads when the Java version has them (Java 21 and later) and on a cached pool of threads
+ * otherwise, so a session that waits for its client costs no more than a few kilobytes.
+ *
+ * The protocol is the one a user types into phonedir: a command letter from the phonedir menu followed by the
+ * answers to its prompts, separated by spaces or line breaks, i.e.
+ *   n dino cajic 444-222-3333
+ *   r 444
+ * The menu and the prompts are not sent. The server sends a line that holds phonedir.END_OF_REPLY when the session
+ * starts and after every reply, so a client reads lines until that one to get the whole reply. When a command asks
+ * again, i.e. because the number already exists, the reply so far is sent and the session waits for the next answer.
+ * 'q' ends the session. 'e' and 'i' are refused, since the clients are not authenticated and must not read or write
+ * files on the server.
+ *
+ * How to use the program: java PhoneDirectoryServer [port] [path]. The port is 7070 if it's not given or is 0 for
+ * any free port. The path is passed to phonedir to store the directory on disk. Connect with the
+ * PhoneDirectoryLoadClient, or by hand with i.e. nc localhost 7070.
+ */
+public class PhoneDirectoryServer implements Closeable {
+
+    /** The port that is used when none is given */
+    private static final int DEFAULT_PORT = 7070;
+
+    /** The phone directory that every session shares */
+    private final phonedir directory;
+
+    /** Accepts the connections of the clients */
+    private final ServerSocket serverSocket;
+
+    /** Runs one task per session */
+    private final ExecutorService sessions;
+
+    /**
+     * Creates a server for a phone directory.
+     *
+     * Precondition: Must pass the phone directory and a port, or 0 for any free port.
+     * Postcondition: Listens on the port of the loopback address, so only programs on the same machine can connect.
+     *
+     * @param directory the phone directory to share.
+     * @param port the port to listen on.
+     * @throws IOException if the port can't be opened.
+     */
+    public PhoneDirectoryServer(phonedir directory, int port) throws IOException {
+        this.directory = directory;
+        this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        this.sessions = newSessionExecutor();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return int
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts clients until the server is closed.
+     *
+     * Precondition: Must be called once.
+     * Postcondition: Every client that connects is served by runSession() on its own task. Returns when close() is
+     * called.
+     *
+     * @throws IOException if a connection can't be accepted for a reason other than close().
+     */
+    public void serve() throws IOException {
+        // Invariant: every client accepted so far has a session
+        while (true) {
+            Socket socket;
+
+            try {
+                socket = this.serverSocket.accept();
+            } catch (SocketException e) {
+                if (this.serverSocket.isClosed()) {
+                    return;
+                }
+
+                throw e;
+            }
+
+            this.sessions.execute(() -> runSession(socket));
+        }
+    }
+
+    /**
+     * Runs the session of one client.
+     *
+     * Precondition: Must pass the connection of the client.
+     * Postcondition: Turns off Nagle's algorithm so that short replies are sent right away, and runs the commands of
+     * the client with phonedir.serve(). The connection is closed when the client enters 'q', disconnects, or a
+     * command fails; a failure ends only this session. A client that disconnects is not reported. Any other failure
+     * is a bug in a command, so it's printed to System.err with the address of the client.
+     *
+     * @param socket the connection of the client.
+     */
+    private void runSession(Socket socket) {
+        try (Socket client = socket) {
+            client.setTcpNoDelay(true);
+            this.directory.serve(
+                    new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8)),
+                    new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The client is gone; only its session ends
+        } catch (RuntimeException e) {
+            System.err.println("The session of " + socket.getRemoteSocketAddress() + " failed:");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the server.
+     *
+     * Precondition: May be called from any thread.
+     * Postcondition: Stops accepting clients and waits up to 10 seconds for the sessions to end.
+     *
+     * @throws IOException if the port can't be closed.
+     */
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.sessions.shutdown();
+
+        try {
+            this.sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the executor that runs the sessions.
+     *
+     * Precondition: None.
+     * Postcondition: Looks up Executors.newVirtualThreadPerTaskExecutor() by reflection, so the class still compiles
+     * and runs on Java versions before 21. If it doesn't exist or virtual threads are not enabled, a cached thread
+     * pool is returned, which starts one platform thread per session and reuses the threads of ended sessions.
+     *
+     * @return ExecutorService
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Runs the phone directory server.
+     *
+     * Precondition: Must run the program.
+     * Postcondition: Loads the phone directory, listens on the port and serves clients until the program is stopped.
+     * @param args Array; optionally the port, and the path of the files to store the directory in.
+     * @throws IOException if the port can't be opened or the stored directory can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        phonedir directory = args.length > 1 ? new phonedir(args[1]) : new phonedir();
+
+        try (PhoneDirectoryServer server = new PhoneDirectoryServer(directory, port)) {
+            System.out.println("Phone directory server listening on port " + server.getPort() + ".");
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: Measures how fast phonedir reads phone numbers with parsePhoneNumber() compared to the regex path it
+ * replaced.
+ *
+ * Solution to the problem: Both paths turn what a user typed into the format xxx-xxx-xxxx and the packed long that the
+ * phone index is keyed by, or reject it:
+ *   regex      the previous formatNumber(): replaceAll("[^\\d]", ""), matches("^[0-9]*$") and three calls to
+ *              createCorrectPhoneFormat(), then the north american regex of addNewRecord() and packPhoneNumber()
+ *   parse      phonedir.parsePhoneNumber(), one pass over the characters, then phonedir.unpackPhoneNumber()
+ * The inputs are INPUTS random numbers written as 4442223333, 444-222-3333, 444.222.3333, (444)222-3333 and, one in
+ * ten, a number with a digit missing. Before anything is measured, both paths must give the same result for every
+ * input. Every measurement is repeated WARMUP_ITERATIONS times so that the JIT compiles the code, and then
+ * MEASURED_ITERATIONS times while the time and the bytes allocated by the thread are recorded, as in
+ * ArrayListDCBenchmark. Results are printed as a table with the throughput in numbers per second, the allocation rate
+ * in MB per second and the bytes allocated per number.
+ *
+ * How to use the program: Compile every class and run java PhoneNumberBenchmark
+ */
+public class PhoneNumberBenchmark {
+
+    /** Runs that let the JIT compile the code; not recorded */
+    private static final int WARMUP_ITERATIONS = 10;
+
+    /** Runs that are recorded */
+    private static final int MEASURED_ITERATIONS = 10;
+
+    /** The amount of numbers that each run reads */
+    private static final int INPUTS = 100000;
+
+    /** Keeps the JIT from removing results that are never used */
+    private static volatile long sink;
+
+    /**
+     * A way of reading a phone number.
+     */
+    private interface Path {
+
+        /**
+         * Reads a phone number.
+         * @param number | The number as the user typed it.
+         * @return long  | The packed number, or -1 if it's rejected.
+         */
+        long read(String number);
+    }
+
+    /**
+     * Checks both paths and measures them.
+     * Precondition: Must have phonedir class in same folder.
+     * Postcondition: Prints one row per path, or a mismatch if the paths disagree.
+     * @param args | Not used.
+     */
+    public static void main(String[] args) {
+        String[] inputs = inputs(new Random(42));
+        Path regex = PhoneNumberBenchmark::readWithRegex;
+        Path parse = PhoneNumberBenchmark::readWithParser;
+
+        for (String input : inputs) {
+            if (regex.read(input) != parse.read(input)) {
+                System.out.println("Mismatch for " + input + ": " + regex.read(input) + " != " + parse.read(input));
+                return;
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-8s %16s %12s %12s", "Path", "numbers/s", "MB/s", "B/op"));
+        measure("regex", regex, inputs);
+        measure("parse", parse, inputs);
+    }
+
+    /**
+     * Creates the inputs.
+     * @param random    | Picks the numbers and their formats.
+     * @return String[] | INPUTS phone numbers.
+     */
+    private static String[] inputs(Random random) {
+        String[] inputs = new String[INPUTS];
+
+        for (int i = 0; i < INPUTS; i++) {
+            String digits = String.valueOf(2000000000L + (long) (random.nextDouble() * 8000000000L));
+
+            if (random.nextInt(10) == 0) {
+                digits = digits.substring(1);
+            }
+
+            String area = digits.substring(0, 3);
+            String exchange = digits.substring(3, 6);
+            String line = digits.substring(6);
+
+            switch (random.nextInt(4)) {
+                case 0:  inputs[i] = digits;                                  break;
+                case 1:  inputs[i] = area + "-" + exchange + "-" + line;      break;
+                case 2:  inputs[i] = area + "." + exchange + "." + line;      break;
+                default: inputs[i] = "(" + area + ")" + exchange + "-" + line; break;
+            }
+        }
+
+        return inputs;
+    }
+
+    /**
+     * Reads a phone number the way phonedir did before parsePhoneNumber().
+     * @param number | The number as the user typed it.
+     * @return long  | The packed number, or -1 if it's rejected.
+     */
+    private static long readWithRegex(String number) {
+        number = formatNumber(number);
+
+        String regex = "^\\(?([0-9]{3})\\)?[-.\\s]?([0-9]{3})[-.\\s]?([0-9]{4})$";
+
+        if (number.length() != 12 || !number.matches(regex)) {
+            return -1;
+        }
+
+        return phonedir.packPhoneNumber(number);
+    }
+
+    /**
+     * Reads a phone number the way phonedir does now.
+     * @param number | The number as the user typed it.
+     * @return long  | The packed number, or -1 if it's rejected.
+     */
+    private static long readWithParser(String number) {
+        long phone = phonedir.parsePhoneNumber(number);
+
+        if (phone < 0) {
+            return -1;
+        }
+
+        // The display form is created too, since phonedir stores it in the record
+        sink += phonedir.unpackPhoneNumber(phone).length();
+        return phone;
+    }
+
+    /**
+     * The formatNumber() method of phonedir before parsePhoneNumber(), unchanged.
+     * @param phoneNumber | The number as the user typed it.
+     * @return String     | The number as xxx-xxx-xxxx, or an empty String.
+     */
+    private static String formatNumber(String phoneNumber) {
+        phoneNumber = phoneNumber.replaceAll("[^\\d]", "");
+
+        String regex = "^[0-9]*$";
+        char[] newNum = new char[12];
+        char[] num = phoneNumber.toCharArray();
+
+        if (phoneNumber.matches(regex)) {
+            if (phoneNumber.length() != 10) {
+                return "";
+            }
+
+            createCorrectPhoneFormat(0, 3, newNum, num, 1);
+            createCorrectPhoneFormat(3, 6, newNum, num, 2);
+            createCorrectPhoneFormat(6, 10, newNum, num, 3);
+        }
+
+        phoneNumber = new String(newNum);
+        return phoneNumber;
+    }
+
+    /**
+     * The createCorrectPhoneFormat() method of phonedir before parsePhoneNumber(), unchanged.
+     * @param start  | Where to start copying the num array into the newNum array.
+     * @param end    | Where to end copying the num array into the newNum array.
+     * @param newNum | The array that stores the formatted number.
+     * @param num    | The digits of the number.
+     * @param pass   | The time that this method was called.
+     */
+    private static void createCorrectPhoneFormat(int start, int end, char[] newNum, char[] num, int pass) {
+        // Invariant: start <= i < end
+        for (int i = start; i < end; i++) {
+            int j = 0;
+
+            if (pass == 2) {
+                j = 1;
+            } else if (pass == 3) {
+                j = 2;
+            }
+
+            newNum[i + j] = num[i];
+        }
+
+        if (pass == 1) {
+            newNum[end] = '-';
+        } else if (pass == 2) {
+            newNum[end+1] = '-';
+        }
+    }
+
+    /**
+     * Warms up and measures a path and prints its row.
+     * Precondition: Must pass the inputs that both paths agreed on.
+     * Postcondition: Prints the average throughput, the allocation rate and the bytes
+     * allocated per number of the measured iterations.
+     * @param name   | The name of the path.
+     * @param path   | The path to measure.
+     * @param inputs | The phone numbers to read.
+     */
+    private static void measure(String name, Path path, String[] inputs) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            run(path, inputs);
+        }
+
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            run(path, inputs);
+            nanos += System.nanoTime() - start;
+            bytes += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            ops += inputs.length;
+        }
+
+        double seconds = nanos / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%-8s %16.0f %12.1f %12.2f",
+                name, ops / seconds, bytes / seconds / (1024 * 1024), (double) bytes / ops));
+    }
+
+    /**
+     * Reads every input once.
+     * @param path   | The path to read them with.
+     * @param inputs | The phone numbers to read.
+     */
+    private static void run(Path path, String[] inputs) {
+        long sum = 0;
+
+        // Invariant: sum holds the results of the inputs before i
+        for (int i = 0; i < inputs.length; i++) {
+            sum += path.read(inputs[i]);
+        }
+
+        sink += sum;
+    }
+}
@@ -0,0 +1,286 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that grows without copying its
+ * elements.
+ *
+ * Data Structures used: Array of arrays (segmented array)
+ *
+ * Solution to the problem: When ArrayListDC is full, it allocates an array twice as large
+ * and copies every element into it. With millions of elements that one add() is slow and,
+ * while the copy runs, both arrays are in memory. The SegmentedArrayListDC class stores
+ * the elements in chunks, arrays of a fixed size that is a power of two:
+ *   chunks -> [ chunk 0 ][ chunk 1 ][ chunk 2 ] ...
+ * When the last chunk is full, a new chunk is allocated and nothing is copied. Only the
+ * chunks array, which holds one reference per chunk, is doubled now and then. Element i
+ * is stored in chunks[i >> shift][i & mask], so get(int index) is still O(1).
+ * The class has the same methods as ArrayListDC:
+ * 1). add Objects to the end of the list: void add(Object x)
+ * 2). add Objects to a specific index location: void add(int index, Object x)
+ * 3). get the object from a specific index location: Object get(int index)
+ * 4). check to see how many elements are in the list: int size()
+ * 5). check to see if the list is empty: boolean isEmpty()
+ * 6). check to see if an object exists within the list: boolean isIn(Object ob)
+ * 7). get the index location of a specific object: int find(Object n)
+ * 8). remove the object from the list: void remove(Object n)
+ * 9). remove the object at a specific index location: Object removeAt(int index)
+ *
+ * To use the class: Instantiate the SegmentedArrayListDC class and either pass the chunk
+ * size or leave blank for chunks of 1024 elements.
+ */
+public class SegmentedArrayListDC {
+
+    /**
+     * Stores the chunks; only the first chunkCount slots are used
+     */
+    private Object[][] chunks;
+
+    /**
+     * The amount of chunks that have been allocated
+     */
+    private int chunkCount;
+
+    /**
+     * log2 of the chunk size; an index shifted right by it gives the chunk
+     */
+    private final int shift;
+
+    /**
+     * The chunk size - 1; an index masked with it gives the position in the chunk
+     */
+    private final int mask;
+
+    /**
+     * The current amount of elements in the list
+     */
+    private int elementsInArray;
+
+    /**
+     * The default constructor that creates a list with chunks of 1024 elements.
+     * Precondition: Must instantiate the class without passing a value.
+     * Postcondition: Initializes the list with one empty chunk.
+     */
+    public SegmentedArrayListDC() {
+        this(1024);
+    }
+
+    /**
+     * Constructor that allows the chunk size to be passed.
+     * Precondition: Parameter chunkSize must be a power of two.
+     * Postcondition: Initializes the list with one empty chunk of chunkSize elements.
+     * @param chunkSize | The amount of elements in each chunk.
+     */
+    public SegmentedArrayListDC(int chunkSize) {
+        if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("The chunk size must be a power of two.");
+        }
+
+        this.shift = Integer.numberOfTrailingZeros(chunkSize);
+        this.mask = chunkSize - 1;
+        this.chunks = new Object[4][];
+        this.chunks[0] = new Object[chunkSize];
+        this.chunkCount = 1;
+    }
+
+    /**
+     * Places an Object at the end of the list.
+     * Precondition: Must pass a parameter x of type Object.
+     * Postcondition: Allocates a new chunk if the last one is full, stores x after the last
+     * element and increments elementsInArray by 1. No element is copied.
+     * @param x | The object to be added to the list.
+     */
+    public void add(Object x) {
+        ensureChunkFor(this.elementsInArray);
+        this.chunks[this.elementsInArray >>> this.shift][this.elementsInArray & this.mask] = x;
+        this.elementsInArray++;
+    }
+
+    /**
+     * Places an Object at a given location.
+     * Precondition: Must pass an index between 0 and size() inclusive and the Object to insert.
+     * Postcondition: If the index is out of bounds, an IndexOutOfBoundsException is thrown.
+     * Allocates a new chunk if the last one is full. Starting with the last chunk, the
+     * elements of each chunk from index on are shifted one position to the right with
+     * System.arraycopy() and the last element of the previous chunk is moved to the first
+     * slot. x is stored at index and elementsInArray is incremented by 1.
+     * @param index | The position where the new Object should be added.
+     * @param x     | The object that should be added at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or greater than size()
+     */
+    public void add(int index, Object x) {
+        if (index < 0 || index > this.elementsInArray) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.elementsInArray);
+        }
+
+        ensureChunkFor(this.elementsInArray);
+
+        int low = index >>> this.shift;
+        int high = this.elementsInArray >>> this.shift;
+
+        // Invariant: the elements in chunks c + 1 through high have already been shifted
+        for (int c = high; c >= low; c--) {
+            Object[] chunk = this.chunks[c];
+            int start = c == low ? index & this.mask : 0;
+            int end = c == high ? this.elementsInArray & this.mask : chunk.length;
+
+            if (end == chunk.length) {
+                this.chunks[c + 1][0] = chunk[chunk.length - 1];
+                end--;
+            }
+
+            System.arraycopy(chunk, start, chunk, start + 1, end - start);
+        }
+
+        this.chunks[low][index & this.mask] = x;
+        this.elementsInArray++;
+    }
+
+    /**
+     * Retrieves the Object at a given location.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Otherwise the Object is read from its chunk.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object get(int index) {
+        Objects.checkIndex(index, this.elementsInArray);
+        return this.chunks[index >>> this.shift][index & this.mask];
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list.
+     * @return elementsInArray value.
+     */
+    public int size() {
+        return this.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the list is empty.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return this.elementsInArray == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the list.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass a parameter of type Object.
+     * Postcondition: Scans the chunks in order. If the Object is found, its position is
+     * returned. Otherwise, -1 is returned.
+     * @param n  | The Object that the method will search for.
+     * @return i | The position of the Object n within the list.
+     */
+    public int find(Object n) {
+        int remaining = this.elementsInArray;
+
+        // Invariant: chunks before c do not contain n
+        for (int c = 0; remaining > 0; c++) {
+            Object[] chunk = this.chunks[c];
+            int length = Math.min(remaining, chunk.length);
+
+            // Invariant: 0 <= i < length
+            for (int i = 0; i < length; i++) {
+                if (n.equals(chunk[i])) {
+                    return (c << this.shift) + i;
+                }
+            }
+
+            remaining -= length;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the first occurrence of an Object starting from location 0.
+     * Precondition: Must pass the Object n as a parameter to be removed.
+     * Postcondition: Finds the position of the Object and calls removeAt() if it exists.
+     * @param n | The Object to be removed from the list.
+     */
+    public void remove(Object n) {
+        int index = find(n);
+
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Removes the Object at a given location.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Starting with the chunk of the index, the elements of each chunk
+     * after the index are shifted one position to the left with System.arraycopy() and the
+     * first element of the next chunk is moved to the last slot. The slot of the old last
+     * element is set to null and elementsInArray is decremented by 1.
+     * @param index   | The index location of the Object to remove.
+     * @return Object | The Object that was removed.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object removeAt(int index) {
+        Objects.checkIndex(index, this.elementsInArray);
+
+        int last = this.elementsInArray - 1;
+        int low = index >>> this.shift;
+        int high = last >>> this.shift;
+        Object removed = this.chunks[low][index & this.mask];
+
+        // Invariant: the elements in chunks low through c - 1 have already been shifted
+        for (int c = low; c <= high; c++) {
+            Object[] chunk = this.chunks[c];
+            int start = c == low ? index & this.mask : 0;
+            int end = c == high ? last & this.mask : chunk.length - 1;
+
+            System.arraycopy(chunk, start + 1, chunk, start, end - start);
+
+            if (c < high) {
+                chunk[chunk.length - 1] = this.chunks[c + 1][0];
+            }
+        }
+
+        this.chunks[high][last & this.mask] = null;
+        this.elementsInArray--;
+
+        return removed;
+    }
+
+    /**
+     * Makes sure that a chunk exists for the element at a given position.
+     * Precondition: index must be at most one past the last allocated slot.
+     * Postcondition: If the position is past the last chunk, a new chunk is allocated. The
+     * chunks array is doubled if it has no room for the new chunk; that copies only the
+     * chunk references, not the elements.
+     * @param index | The position that needs a chunk.
+     */
+    private void ensureChunkFor(int index) {
+        int chunk = index >>> this.shift;
+
+        if (chunk < this.chunkCount) {
+            return;
+        }
+
+        if (this.chunkCount == this.chunks.length) {
+            this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+        }
+
+        this.chunks[this.chunkCount] = new Object[this.mask + 1];
+        this.chunkCount++;
+    }
+}
@@ -0,0 +1,252 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Author: Dino Cajic
+ *
+ * Purpose: To create a resizable array implementation that keeps its Objects in order.
+ *
+ * Data Structures used: Array
+ *
+ * Solution to the problem: ArrayListDC.find() has to look at every element because
+ * the elements can be in any order. The SortedArrayListDC class keeps the elements of
+ * the arrayList array sorted by a Comparator, so it can binary search them:
+ * 1). add(Object x) binary searches for the position after the last element that is
+ *     equal to x, shifts the elements after it with one System.arraycopy() and stores x.
+ * 2). find(Object n) binary searches for the first element that is equal to n in
+ *     O(log n). isIn(Object ob) and remove(Object n) use find().
+ * 3). subRange(Object from, Object to) binary searches both ends and returns the
+ *     elements that are at least from and less than to in O(log n + k).
+ * Elements are equal when the Comparator returns 0 for them. Since the position of an
+ * element is decided by its order, there is no add(int index, Object x).
+ *
+ * To use the class: Instantiate the SortedArrayListDC class with a Comparator, or without
+ * one to sort Comparable elements in their natural order.
+ */
+public class SortedArrayListDC {
+
+    /**
+     * Stores the objects in sorted order
+     */
+    private Object[] arrayList;
+
+    /**
+     * The current amount of elements in the arrayList array
+     */
+    private int elementsInArray;
+
+    /**
+     * Decides the order of the elements
+     */
+    private final Comparator<Object> comparator;
+
+    /**
+     * Creates a list that sorts Comparable elements in their natural order.
+     * Precondition: Every element added must be Comparable to the others.
+     * Postcondition: Initializes the arrayList array with a default size of 10.
+     */
+    @SuppressWarnings("unchecked")
+    public SortedArrayListDC() {
+        this(10, (Comparator<Object>) (Comparator<?>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Creates a list that sorts its elements with a Comparator.
+     * Precondition: Must pass a Comparator.
+     * Postcondition: Initializes the arrayList array with a default size of 10.
+     * @param comparator | Decides the order of the elements.
+     */
+    public SortedArrayListDC(Comparator<Object> comparator) {
+        this(10, comparator);
+    }
+
+    /**
+     * Creates a list with an initial size that sorts its elements with a Comparator.
+     * Precondition: Parameter n must be larger than 0 and a Comparator must be passed.
+     * Postcondition: Initializes the arrayList array with size n.
+     * @param n          | The size of the arrayList array.
+     * @param comparator | Decides the order of the elements.
+     */
+    public SortedArrayListDC(int n, Comparator<Object> comparator) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("The size must be greater than 0.");
+        }
+
+        this.arrayList = new Object[n];
+        this.comparator = Objects.requireNonNull(comparator, "The comparator must not be null.");
+    }
+
+    /**
+     * Places an Object in its sorted position.
+     * Precondition: Must pass an Object that the Comparator can compare.
+     * Postcondition: Doubles the capacity if the array is full. Binary searches for the
+     * position after the last element that is equal to x, so equal elements keep the order
+     * they were added in. The elements after that position are shifted one position to the
+     * right with System.arraycopy(), x is stored and elementsInArray is incremented by 1.
+     * @param x    | The object to be added.
+     * @return int | The position the Object was placed at.
+     */
+    public int add(Object x) {
+        if (this.arrayList.length == this.elementsInArray) {
+            this.arrayList = Arrays.copyOf(this.arrayList, this.arrayList.length * 2);
+        }
+
+        int index = upperBound(x);
+
+        System.arraycopy(this.arrayList, index, this.arrayList, index + 1, this.elementsInArray - index);
+        this.arrayList[index] = x;
+        this.elementsInArray++;
+
+        return index;
+    }
+
+    /**
+     * Retrieves the Object at a given location.
+     * Precondition: Must pass an index between 0 and size() - 1.
+     * Postcondition: Objects.checkIndex() throws an IndexOutOfBoundsException if the index is
+     * not within bounds. Otherwise the Object at the index location is returned.
+     * @param index   | The index location of the Object.
+     * @return Object | The Object at the specific index.
+     * @throws IndexOutOfBoundsException if index is less than 0 or not less than size()
+     */
+    public Object get(int index) {
+        return this.arrayList[Objects.checkIndex(index, this.elementsInArray)];
+    }
+
+    /**
+     * Allows you to get the number of elements currently in the list.
+     * @return elementsInArray value.
+     */
+    public int size() {
+        return this.elementsInArray;
+    }
+
+    /**
+     * Tests to see if the list is empty.
+     * @return true if empty; false if not
+     */
+    public boolean isEmpty() {
+        return this.elementsInArray == 0;
+    }
+
+    /**
+     * Sees if a particular object exists in the list.
+     * Precondition: Must pass an Object that the Comparator can compare.
+     * Postcondition: Returns true if find() returns a value greater than or equal to zero.
+     * @param ob | The object to look for.
+     * @return boolean | True if an equal object exists, false otherwise.
+     */
+    public boolean isIn(Object ob) {
+        return find(ob) >= 0;
+    }
+
+    /**
+     * Returns the location of the first element that is equal to an Object.
+     * Precondition: Must pass an Object that the Comparator can compare.
+     * Postcondition: Binary searches for the first element that is not less than n. If that
+     * element is equal to n, its position is returned. Otherwise, -1 is returned.
+     * @param n    | The Object to search for.
+     * @return int | The position of the first equal element, or -1.
+     */
+    public int find(Object n) {
+        int index = lowerBound(n);
+
+        if (index < this.elementsInArray && this.comparator.compare(this.arrayList[index], n) == 0) {
+            return index;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes the first element that is equal to an Object.
+     * Precondition: Must pass an Object that the Comparator can compare.
+     * Postcondition: If an equal element exists, the elements after it are shifted one
+     * position to the left with System.arraycopy(), the last slot is set to null and
+     * elementsInArray is decremented by 1.
+     * @param n        | The Object to remove.
+     * @return boolean | True if an element was removed.
+     */
+    public boolean remove(Object n) {
+        int index = find(n);
+
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(this.arrayList, index + 1, this.arrayList, index, this.elementsInArray - index - 1);
+        this.elementsInArray--;
+        this.arrayList[this.elementsInArray] = null;
+
+        return true;
+    }
+
+    /**
+     * Returns the elements that are at least from and less than to.
+     * Precondition: Must pass two Objects that the Comparator can compare.
+     * Postcondition: Binary searches for the first element that is not less than from and
+     * the first element that is not less than to. The elements between them are copied
+     * into a new SortedArrayListDC with the same Comparator. If from is not less than to,
+     * the new list is empty.
+     * @param from               | The smallest element to include.
+     * @param to                 | The element that ends the range; not included.
+     * @return SortedArrayListDC | The elements in the range, in order.
+     */
+    public SortedArrayListDC subRange(Object from, Object to) {
+        int start = lowerBound(from);
+        int end = Math.max(start, lowerBound(to));
+
+        SortedArrayListDC range = new SortedArrayListDC(Math.max(end - start, 1), this.comparator);
+        System.arraycopy(this.arrayList, start, range.arrayList, 0, end - start);
+        range.elementsInArray = end - start;
+
+        return range;
+    }
+
+    /**
+     * Returns the position of the first element that is not less than an Object.
+     * @param x    | The Object to compare with.
+     * @return int | A position between 0 and elementsInArray.
+     */
+    private int lowerBound(Object x) {
+        int low = 0;
+        int high = this.elementsInArray;
+
+        // Invariant: elements before low are less than x; elements from high on are not
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (this.comparator.compare(this.arrayList[mid], x) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the position of the first element that is greater than an Object.
+     * @param x    | The Object to compare with.
+     * @return int | A position between 0 and elementsInArray.
+     */
+    private int upperBound(Object x) {
+        int low = 0;
+        int high = this.elementsInArray;
+
+        // Invariant: elements before low are not greater than x; elements from high on are
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (this.comparator.compare(this.arrayList[mid], x) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+}
@@ -1,54 +1,261 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.InputMismatchException;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Author: Dino Cajic
  *
  * Purpose: To store and retrieve phone record entries.
  *
- * Data Structures Used: Array, LinkedList
+ * Data Structures Used: Array, TreeSet, Hash Table, Write-ahead log, Read-write lock
  *
  * The phonedir class maintains a list of records containing names (last and first) and phone numbers of a phone
  * company customers. The program will prompt the user for a command, execute the command, then prompt the user for
  * another command. The commands must be chosen from the following possibilities:
  *   a Show all records
  *   d Delete the current record
+ *   e Export all records to a CSV file
  *   f Change the first name in the current record
+ *   i Import records from a CSV file
  *   l Change the last name in the current record
+ *   m Search for records by name and select one of them
  *   n Add a new record
  *   p Change the phone number in the current record
  *   q Quit
+ *   r Look up records by phone number, area code (xxx) or exchange (xxx-xxx)
  *   s Select a record from the record list to become the current record
+ *
+ * How to use the program: Run it without arguments to keep the directory in memory only. Pass a path, i.e.
+ * java phonedir data/phonedir, to store the directory in data/phonedir.snap and data/phonedir.log with a
+ * PhoneDirectoryLog; the directory is read back from those files the next time the program is started. Pass -b to
+ * read the commands from a pipe, i.e. java phonedir -b < commands.txt, or -f and a file, i.e.
+ * java phonedir -f commands.txt, to run them in batch mode: the menu and prompts are not displayed and the output is
+ * written through one buffered writer. A script holds the same keystrokes a user would type, one token per line or
+ * separated by spaces.
+ *
+ * Many users can share one phone directory through a PhoneDirectoryServer. Each of its sessions is a phonedir that
+ * has its own input, output and current record, and shares the records, the indexes, the log and a read-write lock
+ * with the others. Commands that only read the directory hold the read lock, so they run at the same time; commands
+ * that change it hold the write lock. No lock is held while a command waits for input. A session's current record may
+ * be deleted or changed by another session, so it's checked again before it's used.
  */
 public class phonedir {
 
-    /** Stores the Phone Directory individuals in a LinkedList */
-    LinkedList<Person> persons = new LinkedList<Person>();
+    /**
+     * Orders the records by last name, then first name, then phone number, ignoring case. Compares the sort keys that
+     * each Person computes when its fields are set, so a comparison creates no objects. Since phone numbers are
+     * unique, no two records are equal.
+     */
+    static final Comparator<Person> PERSON_ORDER = (a, b) -> a.getSortKey().compareTo(b.getSortKey());
+
+    /**
+     * Stores the Phone Directory individuals in a TreeSet, a balanced (red-black) tree that keeps them sorted by
+     * PERSON_ORDER. Adding, removing and finding a record take O(log n) and iterating visits the records in order.
+     */
+    TreeSet<Person> persons = new TreeSet<Person>(PERSON_ORDER);
+
+    /** Maps each phone number, packed into a long, to its record so that uniqueness is checked in O(1) */
+    private PhoneIndex phoneIndex = new PhoneIndex();
+
+    /** Finds the records of an area code or an exchange without looking at the records of other area codes */
+    private AreaCodeIndex areaCodeIndex = new AreaCodeIndex();
+
+    /** Finds records by the start of a name or by a misspelled name */
+    private PhoneDirectorySearch search = new PhoneDirectorySearch();
+
+    /** The most records that searchRecords() displays */
+    private static final int SEARCH_RESULTS = 10;
+
+    /** Stores every change on disk; null if the directory is kept in memory only */
+    private PhoneDirectoryLog log;
 
     /** Scanner Class */
     private Scanner input;
 
-    /** The current record of the phone directory */
-    private int currentRecord = 0;
+    /** Every message of the program is written to this buffered writer */
+    private PrintWriter out;
+
+    /** True when the commands are read from a script or a pipe; the menu and prompts are not displayed */
+    private boolean batch;
+
+    /** The spaces that pad the columns of showAllRecords() */
+    private static final String SPACES = "                    ";
+
+    /** The current record of the phone directory; null if no record is selected */
+    private Person currentRecord;
+
+    /** Held for reading while a command reads the records and the indexes, and for writing while it changes them */
+    private ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** True for a session of the PhoneDirectoryServer: 'q' ends the session and each reply ends with END_OF_REPLY */
+    private boolean session;
+
+    /** The line that a session writes when it's ready for the next command */
+    static final String END_OF_REPLY = ".";
 
     /**
      * phonedir constructor
      * Instantiates the Scanner Class
      */
     public phonedir() {
-        input = new Scanner(System.in);
+        this(new Scanner(System.in), false);
+    }
+
+    /**
+     * phonedir constructor that reads the commands from any Scanner.
+     *
+     * Precondition: Must pass the Scanner to read the commands from.
+     * Postcondition: Wraps System.out in a PrintWriter with a 64 KB buffer. In batch mode the buffer is only flushed
+     * when it's full and when the program ends, so millions of commands cost a few thousand writes.
+     *
+     * @param input the Scanner to read the commands from.
+     * @param batch true to run without the menu and prompts.
+     */
+    phonedir(Scanner input, boolean batch) {
+        this.input = input;
+        this.batch = batch;
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+    }
+
+    /**
+     * phonedir constructor for a session of the PhoneDirectoryServer.
+     *
+     * Precondition: Must pass the phone directory to share, and the Scanner and PrintWriter of the client.
+     * Postcondition: The session shares the records, the indexes, the log and the lock of the directory, and has no
+     * current record. It runs in batch mode, so the menu and prompts are not displayed.
+     *
+     * @param directory the phone directory to share.
+     * @param input the Scanner to read the commands of the client from.
+     * @param out the PrintWriter to write the replies to the client to.
+     */
+    private phonedir(phonedir directory, Scanner input, PrintWriter out) {
+        this.input = input;
+        this.out = out;
+        this.batch = true;
+        this.session = true;
+        this.persons = directory.persons;
+        this.phoneIndex = directory.phoneIndex;
+        this.areaCodeIndex = directory.areaCodeIndex;
+        this.search = directory.search;
+        this.log = directory.log;
+        this.lock = directory.lock;
+    }
+
+    /**
+     * Runs the commands of one client of the PhoneDirectoryServer.
+     *
+     * Precondition: Must pass the connection of the client. May be called by many threads at the same time.
+     * Postcondition: Creates a session that shares this phone directory and runs its commands until the client enters
+     * 'q' or closes the connection. Every reply, and the greeting, ends with a line that holds END_OF_REPLY.
+     *
+     * @param reader reads the commands of the client.
+     * @param writer writes the replies to the client.
+     */
+    void serve(Reader reader, Writer writer) {
+        new phonedir(this, new Scanner(reader), new PrintWriter(new BufferedWriter(writer, 1 << 16))).start();
+    }
+
+    /**
+     * phonedir constructor that stores the directory on disk.
+     *
+     * Precondition: Must pass the path of the snapshot and log files without an extension.
+     * Postcondition: Instantiates the Scanner Class and calls openLog().
+     *
+     * @param path the path of the files without the .snap and .log extensions.
+     * @throws IOException if the files can't be read.
+     */
+    public phonedir(String path) throws IOException {
+        this();
+        openLog(path);
+    }
+
+    /**
+     * Stores the directory on disk.
+     *
+     * Precondition: Must pass the path of the snapshot and log files without an extension.
+     * Postcondition: Opens the PhoneDirectoryLog and loads the records of the snapshot and the changes in the log into
+     * the persons TreeSet and the indexes. Every later change is appended to the log.
+     *
+     * @param path the path of the files without the .snap and .log extensions.
+     * @throws IOException if the files can't be read.
+     */
+    private void openLog(String path) throws IOException {
+        this.log = new PhoneDirectoryLog(path);
+        this.log.load(new PhoneDirectoryLog.Replay() {
+            public void put(long phone, String first, String last) {
+                restoreRecord(phone, first, last);
+            }
+
+            public void delete(long phone) {
+                removeRecord(phone);
+            }
+        });
     }
 
     /**
      * Runs the phone directory program.
      *
      * Precondition: Must run the program.
-     * Postcondition: Instantiates the phonedir class and calls the start() method to begin everything.
-     * @param args Array
+     * Postcondition: Instantiates the phonedir class and calls the start() method to begin everything. With -b the
+     * commands are read from System.in in batch mode; with -f followed by a file they are read from the file in batch
+     * mode; -f without a file prints the usage and exits. Any other argument is the path of the files to store the
+     * directory in.
+     * @param args Array; optionally -b or -f and a script file, and the path of the files to store the directory in.
+     * @throws IOException if the script or the stored directory can't be read.
      */
-    public static void main(String[] args) {
-        phonedir phoneDirectory = new phonedir();
+    public static void main(String[] args) throws IOException {
+        boolean batch = false;
+        Scanner input = null;
+        String path = null;
+
+        // Invariant: the arguments before i have been read
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-b")) {
+                batch = true;
+            } else if (args[i].equals("-f")) {
+                if (i + 1 == args.length) {
+                    System.err.println("Usage: java phonedir [-b | -f script] [path]");
+                    System.err.println("-f must be followed by the script file to read the commands from.");
+                    System.exit(1);
+                }
+
+                batch = true;
+                i++;
+                input = new Scanner(Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8));
+            } else {
+                path = args[i];
+            }
+        }
+
+        phonedir phoneDirectory = new phonedir(input != null ? input : new Scanner(System.in), batch);
+
+        if (path != null) {
+            phoneDirectory.openLog(path);
+        }
+
         phoneDirectory.start();
     }
 
@@ -57,9 +264,25 @@ public class phonedir {
      *
      * Precondition: phonedir class must be instantiated in main().
      * Postcondition: Displays the prompt message to specify what to select. Allows the user to select an option
-     * until 'q' is specified in which case the program is terminated.
+     * until 'q' is specified in which case the program is terminated, or the session ends for a session of the
+     * PhoneDirectoryServer. If the input ends in the middle of a command, i.e. a batch script that is cut short, the
+     * program ends as if 'q' was entered. The output is flushed however the loop ends.
      */
     private void start() {
+        try {
+            runCommands();
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads and runs commands until the input ends or the user quits.
+     *
+     * Precondition: Must be called by start(), which flushes the output afterwards.
+     * Postcondition: Runs each command as described in start().
+     */
+    private void runCommands() {
         String option;
         displayPromptMessage();
 
@@ -68,45 +291,106 @@ public class phonedir {
                 option = input.next();
 
                 switch(option) {
-                    case "q": System.exit(-1);        break;
+                    case "q": quit();                 break;
                     case "a": showAllRecords();       break;
                     case "d": deleteCurrentRecord();  break;
+                    case "e": exportRecords();        break;
                     case "f": changeFirstName();      break;
+                    case "i": importRecords();        break;
                     case "l": changeLastName();       break;
+                    case "m": searchRecords();        break;
                     case "n": addNewRecord();         break;
                     case "p": changePhoneNumber();    break;
+                    case "r": reverseLookup();        break;
                     case "s": selectRecord();         break;
                     default:
-                        System.out.println("The option you've selected is not available. Please choose from the " +
+                        out.println("The option you've selected is not available. Please choose from the " +
                                 "available options.");
                         break;
                 }
             } catch(InputMismatchException e) {
-                System.out.println("The option you've selected is not available. Please choose from the " +
+                out.println("The option you've selected is not available. Please choose from the " +
                         "available options.");
+            } catch(NoSuchElementException | SessionClosedException e) {
+                return;
             } finally {
                 displayPromptMessage();
             }
         }
     }
 
+    /**
+     * Displays a prompt for the user.
+     *
+     * Precondition: Must be called right before reading from the input.
+     * Postcondition: In interactive mode, the prompt is displayed and everything written so far is flushed, so the
+     * user sees it before typing. In batch mode the prompt is not displayed and nothing is flushed, except in a
+     * session, where the client has to see the reply so far before it can answer.
+     *
+     * @param message the prompt.
+     */
+    private void prompt(String message) {
+        if (this.session) {
+            out.flush();
+        }
+
+        if (this.batch) {
+            return;
+        }
+
+        out.print(message);
+        out.flush();
+    }
+
+    /**
+     * Quits the program.
+     *
+     * Precondition: Must be called when the user enters 'q'.
+     * Postcondition: Flushes the output, so nothing buffered in batch mode is lost, and terminates the program. A
+     * session of the PhoneDirectoryServer throws a SessionClosedException instead, which ends only that session.
+     */
+    private void quit() {
+        out.flush();
+
+        if (this.session) {
+            throw new SessionClosedException();
+        }
+
+        System.exit(-1);
+    }
+
     /**
      * Displays the message to the user.
      *
      * Precondition: Must be called in the start() method.
-     * Postcondition: Displays the instructions for the user to follow.
+     * Postcondition: Displays the instructions for the user to follow. Nothing is displayed in batch mode. A session
+     * writes END_OF_REPLY instead and flushes, so the client knows the reply is complete.
      */
     private void displayPromptMessage() {
-        System.out.println("\nA Program to keep a Phone Directory:\n\n" +
+        if (this.session) {
+            out.println(END_OF_REPLY);
+            out.flush();
+            return;
+        }
+
+        if (this.batch) {
+            return;
+        }
+
+        out.println("\nA Program to keep a Phone Directory:\n\n" +
                            "          a     Show all records\n" +
                            "          d     Delete the current record\n" +
+                           "          e     Export all records to a CSV file\n" +
                            "          f     Change the first name in the current record\n" +
+                           "          i     Import records from a CSV file\n" +
                            "          l     Change the last name in the current record\n" +
+                           "          m     Search for records by name and select one of them\n" +
                            "          n     Add a new record\n" +
                            "          p     Change the phone number in the current record\n" +
                            "          q     Quit\n" +
+                           "          r     Look up records by phone number, area code (xxx) or exchange (xxx-xxx)\n" +
                            "          s     Select a record from the record list to become the current record\n");
-        System.out.print("Enter a command from the list above (q to quit): ");
+        prompt("Enter a command from the list above (q to quit): ");
     }
 
     /**
@@ -114,39 +398,51 @@ public class phonedir {
      *
      * Precondition: Must add an entry to the phone directory prior to calling.
      * Postcondition: Displays each first name, last name and phone number. The lengths are used to calculate how much
-     * white space should be added in order to line up first name, last name and phone number with the headers. If the
+     * white space should be added in order to line up first name, last name and phone number with the headers. Each
+     * record is built in a StringBuilder with appendPadded() and written with a single println(). If the
      * method is called without having at least one record in the phone directory, a no records found message is
-     * displayed and the method execution is terminated.
+     * displayed and the method execution is terminated. The read lock is held from the check to the last record.
      */
     private void showAllRecords() {
-        if (persons.size() == 0) {
-            System.out.println("No current record.");
-            return;
-        }
+        StringBuilder line = new StringBuilder(60);
+        this.lock.readLock().lock();
 
-        System.out.println("First Name          Last Name           Phone Number       ");
-        System.out.println("------------------- ------------------- -------------------");
-
-        for (Person individual: this.persons) {
-            System.out.print(individual.getFirstName());
-            // Invariant: individual.getFirstName().length() <= i < 20
-            for (int i = individual.getFirstName().length(); i < 20; i++) {
-                System.out.print(" ");
+        try {
+            if (this.persons.isEmpty()) {
+                out.println("No current record.");
+                return;
             }
 
-            System.out.print(individual.getLastName());
-            // Invariant: individual.getLastName().length() <= i < 20
-            for (int i = individual.getLastName().length(); i < 20; i++) {
-                System.out.print(" ");
-            }
+            out.println("First Name          Last Name           Phone Number       ");
+            out.println("------------------- ------------------- -------------------");
 
-            System.out.print(individual.getPhoneNumber());
-            // Invariant: individual.getPhoneNumber().length() <= i < 20
-            for (int i = individual.getPhoneNumber().length(); i < 20; i++) {
-                System.out.print(" ");
+            for (Person individual: this.persons) {
+                line.setLength(0);
+                appendPadded(line, individual.getFirstName());
+                appendPadded(line, individual.getLastName());
+                appendPadded(line, individual.getPhoneNumber());
+                out.println(line);
             }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a column of the records table.
+     *
+     * Precondition: Must pass the line that is being built and the value of the column.
+     * Postcondition: Appends the value followed by enough spaces to make the column 20 characters wide, in a single
+     * append of a slice of SPACES. A value of 20 characters or more is appended without spaces.
+     *
+     * @param line the line of the table.
+     * @param value the value of the column.
+     */
+    private static void appendPadded(StringBuilder line, String value) {
+        line.append(value);
 
-            System.out.println();
+        if (value.length() < 20) {
+            line.append(SPACES, 0, 20 - value.length());
         }
     }
 
@@ -156,20 +452,33 @@ public class phonedir {
      * Precondition: Must have at least one record in the phone directory. The record to be deleted must be selected
      * either by adding the current record (in which case that record is automatically set as the current record) or
      * by using the selectRecord() method to select a record from the phone directory.
-     * Postcondition: Removes the record from the phone directory. Displays that the record has been removed and shows
+     * Postcondition: Holds the write lock while it removes the record from the phone directory, the indexes and the
+     * log. Displays that the record has been removed and shows
      * all of the available remaining records within the phone directory. If the method is called without having at
      * least one record in the phone directory, a no records found message is displayed and the method execution is
      * terminated.
      */
     private void deleteCurrentRecord() {
-        if (persons.size() == 0 || this.currentRecord == -1) {
-            System.out.println("No current record");
-            return;
+        this.lock.writeLock().lock();
+
+        try {
+            if (!hasCurrentRecord()) {
+                out.println("No current record");
+                return;
+            }
+
+            long phone = packPhoneNumber(this.currentRecord.getPhoneNumber());
+            this.persons.remove( this.currentRecord );
+            this.search.remove( this.currentRecord );
+            this.phoneIndex.remove( phone );
+            this.areaCodeIndex.remove( phone );
+            logDelete(phone);
+            this.currentRecord = null;
+        } finally {
+            this.lock.writeLock().unlock();
         }
 
-        this.persons.remove( this.currentRecord );
-        this.currentRecord = -1;
-        System.out.println("Record Removed");
+        out.println("Record Removed");
         showAllRecords();
     }
 
@@ -178,13 +487,21 @@ public class phonedir {
      *
      * Precondition: Must have at least one record entered; the record must be selected either by adding a new record
      * or implicitly using the select feature to select the item.
-     * Postcondition: Displays the first name, last name and phone number of the record.
+     * Postcondition: Holds the read lock while it displays the first name, last name and phone number of the record,
+     * so another session can't change the record halfway through. The lock is reentrant, so the method may be called
+     * while the read or the write lock is held.
      */
     private void displayCurrentRecord() {
-        System.out.println("Current record is: " +
-                persons.get(currentRecord).getFirstName() + " " +
-                persons.get(currentRecord).getLastName() + " " +
-                persons.get(currentRecord).getPhoneNumber());
+        this.lock.readLock().lock();
+
+        try {
+            out.println("Current record is: " +
+                    currentRecord.getFirstName() + " " +
+                    currentRecord.getLastName() + " " +
+                    currentRecord.getPhoneNumber());
+        } finally {
+            this.lock.readLock().unlock();
+        }
     }
 
     /**
@@ -192,33 +509,44 @@ public class phonedir {
      *
      * Precondition: The record that you want to change must be selected; the record must be selected either by adding
      * a new record or implicitly using the select feature to select the item.
-     * Postcondition: Prompts the user to enter the first name. Capitalizes the first letter. Makes a copy of the
-     * current record. Removes the current record from the phone directory. Updates the first name in the copy that was
-     * just created. Gets the index as to where the record should be inserted. Inserts the updated copy back into the
-     * phone directory. Signifies that the record has been updated and displays the current record. If the method is
-     * called without having at least one record in the phone directory, a no records found message is displayed and
-     * the method execution is terminated.
+     * Postcondition: Prompts the user to enter the first name. Capitalizes the first letter. Removes the current record
+     * from the phone directory, since its position depends on its name. Updates the first name and adds the record back
+     * into the phone directory, which places it in order in O(log n), while holding the write lock. Signifies that the
+     * record has been updated and displays the current record. If the method is called without having at least one
+     * record in the phone directory, a no records found message is displayed and the method execution is terminated.
      */
     private void changeFirstName() {
-        if (persons.size() == 0 || this.currentRecord == -1) {
-            System.out.println("No current record");
+        if (!hasCurrentRecord()) {
+            out.println("No current record");
             return;
         }
 
-        System.out.print("Enter first name: ");
+        prompt("Enter first name: ");
         String newFirstName = input.next();
         String s1 = newFirstName.substring(0, 1).toUpperCase();
         newFirstName = s1 + newFirstName.substring(1);
 
-        Person current = persons.get(currentRecord);
-        persons.remove(currentRecord);
-        current.setFirstName(newFirstName);
+        this.lock.writeLock().lock();
+
+        try {
+            if (!hasCurrentRecord()) {
+                out.println("No current record");
+                return;
+            }
 
-        getIndexOfInsertion(current);
-        this.persons.add(this.currentRecord, current);
+            Person current = this.currentRecord;
+            this.persons.remove(current);
+            this.search.remove(current);
+            current.setFirstName(newFirstName);
+            this.persons.add(current);
+            this.search.add(current);
+            logPut(current);
 
-        System.out.println("First name has been changed.");
-        displayCurrentRecord();
+            out.println("First name has been changed.");
+            displayCurrentRecord();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -226,33 +554,44 @@ public class phonedir {
      *
      * Precondition: The record that you want to change must be selected; the record must be selected either by adding
      * a new record or implicitly using the select feature to select the item.
-     * Postcondition: Prompts the user to enter the last name. Capitalizes the first letter. Makes a copy of the
-     * current record. Removes the current record from the phone directory. Updates the last name in the copy that was
-     * just created. Gets the index as to where the record should be inserted. Inserts the updated copy back into
-     * the phone directory. Signifies that the record has been updated and displays the current record. If the method
-     * is called without having at least one record in the phone directory, a no records found message is displayed and
-     * the method execution is terminated.
+     * Postcondition: Prompts the user to enter the last name. Capitalizes the first letter. Removes the current record
+     * from the phone directory, since its position depends on its name. Updates the last name and adds the record back
+     * into the phone directory, which places it in order in O(log n), while holding the write lock. Signifies that the
+     * record has been updated and displays the current record. If the method is called without having at least one
+     * record in the phone directory, a no records found message is displayed and the method execution is terminated.
      */
     private void changeLastName() {
-        if (persons.size() == 0 || this.currentRecord == -1) {
-            System.out.println("No current record");
+        if (!hasCurrentRecord()) {
+            out.println("No current record");
             return;
         }
 
-        System.out.print("Enter last name: ");
+        prompt("Enter last name: ");
         String newLastName = input.next();
         String s1 = newLastName.substring(0, 1).toUpperCase();
         newLastName = s1 + newLastName.substring(1);
 
-        Person current = persons.get(currentRecord);
-        persons.remove(currentRecord);
-        current.setLastName(newLastName);
+        this.lock.writeLock().lock();
 
-        getIndexOfInsertion(current);
-        this.persons.add(this.currentRecord, current);
+        try {
+            if (!hasCurrentRecord()) {
+                out.println("No current record");
+                return;
+            }
 
-        System.out.println("Last name has been changed");
-        displayCurrentRecord();
+            Person current = this.currentRecord;
+            this.persons.remove(current);
+            this.search.remove(current);
+            current.setLastName(newLastName);
+            this.persons.add(current);
+            this.search.add(current);
+            logPut(current);
+
+            out.println("Last name has been changed");
+            displayCurrentRecord();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -260,360 +599,1271 @@ public class phonedir {
      *
      * Precondition: The record that you want to change must be selected; the record must be selected either by adding
      * a new record or implicitly using the select feature to select the item.
-     * Postcondition: Initializes the phoneNum variable with the current record's phone umber. Enters a while loop to
-     * check and see if the number already exists in the phone directory. Prompts the user to enter a phone number.
-     * It formats the number into a standard xxx-xxx-xxxx. Checks to see if the number exists in the phone directory.
-     * If it does, it notifies the user and asks for him/her to enter the number again (they may enter 'q' to quit or
-     * 'a' to display all of the records again). If the phone number does not exist in the phone directory, it makes a
-     * copy of the current record. Removes the current record from the phone directory. Updates the phone number in
-     * the copy that was just created. Gets the index as to where the record should be inserted. Inserts the updated
-     * copy back into the phone directory. Signifies that the record has been updated and displays the current record.
-     * If the method is called without having at least one record in the phone directory, a no records found message is
-     * displayed and the method execution is terminated.
+     * Postcondition: Enters a while loop that prompts the user to enter a phone number until the number is changed.
+     * The user may enter 'q' to quit or 'a' to display all of the records. The number is read by parsePhoneNumber(),
+     * which makes sure that it holds the 10 digits of a north american phone number. If it doesn't, the user is asked
+     * again before any lock is taken. Otherwise the write lock is held while the number is checked and the record is
+     * updated, so two sessions can't take the same number. If the number exists in the phone directory, the user is
+     * asked to enter the number again. If it doesn't, it removes the current record from the phone directory. Updates
+     * the phone number and adds the record back into the phone directory, which places it in order in O(log n), and
+     * moves it to the new number in the phone index. Signifies that the record has been updated and displays the
+     * current record. If the method is called without having at least one record in the phone directory, a no records
+     * found message is displayed and the method execution is terminated.
      */
     private void changePhoneNumber() {
-        if (persons.size() == 0 || this.currentRecord == -1) {
-            System.out.println("No current record");
+        if (!hasCurrentRecord()) {
+            out.println("No current record");
             return;
         }
 
-        String phoneNum = persons.get(currentRecord).getPhoneNumber();
-
-        boolean numExists = true;
-
-        while (numExists) {
-            System.out.println("Enter phone number: ");
-            phoneNum = input.next();
-            phoneNum = formatNumber(phoneNum);
+        // Invariant: every number entered so far was invalid or already exists
+        while (true) {
+            prompt("Enter phone number: " + System.lineSeparator());
+            String number = input.next();
 
-            if (phoneNum.equals("q")) {
-                System.exit(-1);
-            } else if (phoneNum.equals("d")) {
+            if (number.equals("q")) {
+                quit();
+            } else if (number.equals("a")) {
                 this.showAllRecords();
+                continue;
             }
 
-            numExists = checkIfPhoneNumberExists(phoneNum);
+            long phone = parsePhoneNumber(number);
 
-            if (numExists) {
-                System.out.println("Number already exists, try another.");
-                System.out.println("You can enter 'q' to quit, 'a' to display all records or add a new number to " +
+            if (phone < 0) {
+                out.println("Incorrect Number entered. Try again.");
+                out.println("You can enter 'q' to quit, 'a' to display all records or add a new number to " +
                         "try again.");
+                continue;
             }
-        }
 
-        Person current = this.persons.get( this.currentRecord );
-        this.persons.remove( this.currentRecord );
-        current.setPhoneNumber(phoneNum);
+            this.lock.writeLock().lock();
 
-        getIndexOfInsertion(current);
-        this.persons.add(this.currentRecord, current);
+            try {
+                if (!hasCurrentRecord()) {
+                    out.println("No current record");
+                    return;
+                }
+
+                if (!checkIfPhoneNumberExists(phone)) {
+                    Person current = this.currentRecord;
+                    long oldPhone = packPhoneNumber(current.getPhoneNumber());
+                    this.persons.remove(current);
+                    this.search.remove(current);
+                    this.phoneIndex.remove(oldPhone);
+                    this.areaCodeIndex.remove(oldPhone);
+                    current.setPhoneNumber(unpackPhoneNumber(phone));
+                    this.persons.add(current);
+                    this.search.add(current);
+                    this.phoneIndex.put(phone, current);
+                    this.areaCodeIndex.put(phone, current);
+                    // The new number is logged first, so a crash in between keeps the record under the old one too
+                    logPut(current);
+                    logDelete(oldPhone);
+
+                    out.println("The phone number has been successfully updated.");
+                    this.displayCurrentRecord();
+                    return;
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
 
-        System.out.println("The phone number has been successfully updated.");
-        this.displayCurrentRecord();
+            out.println("Number already exists, try another.");
+            out.println("You can enter 'q' to quit, 'a' to display all records or add a new number to " +
+                    "try again.");
+        }
     }
 
     /**
      * Checks to see if the phone number exists.
      *
-     * Precondition: Must pass a phone number of type string in the format xxx-xxx-xxxx.
-     * Postcondition: Cycles through the phone directory and checks to see if the phone number already exists. If it
-     * does, it returns true; otherwise, it returns false.
+     * Precondition: Must pass a phone number read by parsePhoneNumber().
+     * Postcondition: Looks up the phone number in the phone index in O(1). If a record has the number, it returns
+     * true; otherwise, it returns false.
+     *
+     * @param phone the number to check and see if it exists in the phone directory, packed into a long.
+     * @return boolean
+     */
+    private boolean checkIfPhoneNumberExists(long phone) {
+        return this.phoneIndex.get(phone) != null;
+    }
+
+    /**
+     * Checks to see if the phone directory has any records.
+     *
+     * Precondition: May be called with or without a lock held.
+     * Postcondition: Holds the read lock while it checks the persons TreeSet. Returns true if it holds at least one
+     * record; otherwise, it returns false.
+     *
+     * @return boolean
+     */
+    private boolean hasRecords() {
+        this.lock.readLock().lock();
+
+        try {
+            return !this.persons.isEmpty();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks to see if there is a current record that is still in the phone directory.
+     *
+     * Precondition: May be called with or without the write lock held.
+     * Postcondition: Holds the read lock while it looks up the phone number of the current record in the phone index.
+     * Returns true if the index holds the current record under that number. Returns false if no record is selected,
+     * or if another session of the PhoneDirectoryServer deleted the record; the current record is then cleared.
      *
-     * @param phoneNumber the number to check and see if it exists in the phone directory.
      * @return boolean
      */
-    private boolean checkIfPhoneNumberExists(String phoneNumber) {
-        for (Person individual: this.persons) {
-            if (individual.getPhoneNumber().equals(phoneNumber)) {
+    private boolean hasCurrentRecord() {
+        if (this.currentRecord == null) {
+            return false;
+        }
+
+        this.lock.readLock().lock();
+
+        try {
+            if (this.phoneIndex.get(packPhoneNumber(this.currentRecord.getPhoneNumber())) == this.currentRecord) {
                 return true;
             }
+        } finally {
+            this.lock.readLock().unlock();
         }
 
+        this.currentRecord = null;
         return false;
     }
 
     /**
-     * Adds a new entry to the phone directory.
+     * Imports records from a CSV file.
      *
-     * Precondition: Must select "n" from the available options.
-     * Postcondition: Prompts the user for the first name, last name and phone number. Capitalizes the first and last
-     * names. Cycles through a while loop to make sure that the phone number entered does not match a phone number
-     * already in the phone directory. Within the loop, it prompts the user to enter a phone number. The number is run
-     * through a formatNumber() method to format it into the standard xxx-xxx-xxxx. The number is sent to the
-     * checkIfPhoneNumberExists() method to see if it exists in the phone directory. If it does, a prompt is issued to
-     * the user to enter a new phone number or enter 'q' to quit the program. The length of the number is verified to
-     * make sure that it's 12 characters long and that it matches a north american phone number standard. If everything
-     * is ok, the isNumberCorrect variable is set to true so that the loop may terminate. A new Person object is
-     * created. The correct insertion place is determined with the getIndexOfInsertion() method. The newly created
-     * Person object is inserted into the persons Linked List and the record is displayed.
+     * Precondition: Must select "i" from the available options. Each line of the file must hold a first name, a last
+     * name and a phone number separated by commas; a field may be quoted with double quotes.
+     * Postcondition: Prompts the user for the file name. Reads the file one line at a time with a buffered NIO reader,
+     * so only the new records are kept in memory. Capitalizes the names and reads the number with parsePhoneNumber().
+     * Lines that don't have three fields or a valid number, and numbers that are already in the phone directory or
+     * earlier in the file, are skipped. The new records are sorted once and combined with the phone directory by
+     * addSortedRecords(). If the directory is stored on disk, a new snapshot is written instead of one log entry per
+     * record. The write lock is held from the first line to the snapshot. Displays how many records were imported and
+     * how many lines were skipped. A session of the PhoneDirectoryServer reads the file name and refuses, since its
+     * client could otherwise read any file that the server can.
      */
-    private void addNewRecord() {
-        System.out.print("Add first name: ");
-        String first = input.next();
-        String s1 = first.substring(0, 1).toUpperCase();
-        first = s1 + first.substring(1);
+    private void importRecords() {
+        prompt("Enter the CSV file to import: ");
+        String fileName = input.next();
 
-        System.out.print("Add last name: ");
-        String last = input.next();
-        s1 = last.substring(0,1).toUpperCase();
-        last = s1 + last.substring(1);
+        if (refuseFileAccess()) {
+            return;
+        }
 
-        boolean isNumberCorrect = false;
-        String number = "";
+        ArrayList<Person> imported = new ArrayList<Person>();
+        int skipped = 0;
+        this.lock.writeLock().lock();
 
-        while (!isNumberCorrect) {
-            System.out.print("Enter phone number: ");
-            number = input.next();
+        try {
+            skipped = readRecords(fileName, imported);
 
-            if (number.equals("q")) {
-                System.exit(-1);
+            if (skipped < 0) {
+                return;
             }
 
-            number = formatNumber(number);
+            imported.sort(PERSON_ORDER);
+            addSortedRecords(imported);
 
-            if (checkIfPhoneNumberExists(number)) {
-                System.out.println("Number already exists. Try again");
-                System.out.println("You may also enter 'q' to quit.");
-                continue;
+            // Invariant: the records before i have been added to the search index and the area code index
+            for (int i = 0; i < imported.size(); i++) {
+                this.search.add(imported.get(i));
+                this.areaCodeIndex.put(packPhoneNumber(imported.get(i).getPhoneNumber()), imported.get(i));
             }
 
-            // Validates all North American Phone standards
-            // i.e. 123456789 OR 123-456-7890 OR 123.456.7890 OR 123 456 7890 OR (123) 456 7890
-            String regex = "^\\(?([0-9]{3})\\)?[-.\\s]?([0-9]{3})[-.\\s]?([0-9]{4})$";
-
-            if (number.length() != 12 || !number.matches(regex)) {
-                System.out.println("Incorrect Number entered. Try again.");
-                System.out.println("You may enter 'q' to quit or try again.");
-            } else {
-                isNumberCorrect = true;
+            if (this.log != null && !imported.isEmpty()) {
+                try {
+                    this.log.compact(this.persons, this.persons.size());
+                } catch (IOException e) {
+                    out.println("The imported records could not be saved: " + e.getMessage());
+                }
             }
+        } finally {
+            this.lock.writeLock().unlock();
         }
 
-        Person individual = new Person(first, last, number);
-        getIndexOfInsertion(individual);
-        this.persons.add(this.currentRecord, individual);
-
-        displayCurrentRecord();
+        out.println("Imported " + imported.size() + " records. Skipped " + skipped + " lines.");
     }
 
     /**
-     * Formats the phone number into the correct North American phone standard: i.e. xxx-xxx-xxxx.
+     * Reads the new records of a CSV file.
      *
-     * Precondition: Must pass a phoneNumber variable with 10 digits within it.
-     * Postcondition: Strips all of the non-digits from the phoneNumber variable. Creates an empty newNum char array
-     * that will store the individual phone number characters. Creates a num char array that stores a character copy
-     * of the phoneNumber String. Double checks to make sure that the phoneNumber variable only contains digits and
-     * checks to see if there are 10 digits stored in it. If there aren't, it returns an empty String. If the correct
-     * amount of digits are stored within the phoneNumber String, the createCorrectPhoneFormat() method is called to
-     * help construct the newly formatted phone number. The createCorrectPhoneFormat() array stores the characters as
-     * newNum array elements. A new String is generated from the newNum array and that string is returned. The final
-     * output should be in the format xxx-xxx-xxxx.
+     * Precondition: Must hold the write lock. Must pass the name of the file and an empty list.
+     * Postcondition: Reads the file one line at a time. Each valid record whose number is not in the phone directory
+     * or earlier in the file is added to the list and to the phone index. If the file can't be read, the records are
+     * removed from the phone index again, a message is displayed and -1 is returned.
      *
-     * @param phoneNumber the phone number that will be formatted to the xxx-xxx-xxxx standard.
-     * @return String
+     * @param fileName the CSV file.
+     * @param imported the list that the new records are added to.
+     * @return int the amount of lines that were skipped, or -1 if the file couldn't be read.
      */
-    private String formatNumber(String phoneNumber) {
-        phoneNumber = phoneNumber.replaceAll("[^\\d]", "");
+    private int readRecords(String fileName, ArrayList<Person> imported) {
+        int skipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            String line;
 
-        String regex = "^[0-9]*$";
-        char[] newNum = new char[12];
-        char[] num = phoneNumber.toCharArray();
+            while ((line = reader.readLine()) != null) {
+                String[] fields = splitCsvLine(line);
 
-        if (phoneNumber.matches(regex)) {
-            if (phoneNumber.length() != 10) {
-                return "";
+                if (fields == null || fields[0].isEmpty() || fields[1].isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+
+                long phone = parsePhoneNumber(fields[2]);
+
+                if (phone < 0 || this.phoneIndex.get(phone) != null) {
+                    skipped++;
+                    continue;
+                }
+
+                String first = fields[0].substring(0, 1).toUpperCase() + fields[0].substring(1);
+                String last = fields[1].substring(0, 1).toUpperCase() + fields[1].substring(1);
+                Person individual = new Person(first, last, unpackPhoneNumber(phone));
+
+                this.phoneIndex.put(phone, individual);
+                imported.add(individual);
+            }
+        } catch (IOException e) {
+            // Invariant: the records before i were added to the phone index
+            for (int i = 0; i < imported.size(); i++) {
+                this.phoneIndex.remove(packPhoneNumber(imported.get(i).getPhoneNumber()));
             }
 
-            createCorrectPhoneFormat(0, 3, newNum, num, 1);
-            createCorrectPhoneFormat(3, 6, newNum, num, 2);
-            createCorrectPhoneFormat(6, 10, newNum, num, 3);
+            out.println("The file could not be read: " + e.getMessage());
+            return -1;
         }
 
-        phoneNumber = new String(newNum);
-        return phoneNumber;
+        return skipped;
     }
 
     /**
-     * Helps to store the correct phone number format into a newNum array.
+     * Adds records that are sorted by PERSON_ORDER to the persons TreeSet.
      *
-     * Precondition: Must have newNum of size 12 created in calling method. Must pass the newNum array and the num
-     * array. The num array contains the copy of the phone number in array format
-     * i.e. num = [1, 2, 3, 4, 5, 6, 7, 8, 9, 0]; Must also pass where to start copying the num array and where to
-     * end the copying of the num array into the newNum array. Lastly, it must provide the pass argument. The pass
-     * argument signifies which time is this being submitted. i.e. the first time will provide digits 1, 2, 3 from the
-     * num char array.
-     * Postcondition: Cycles through the num array between the start and end positions. Initializes the j variable. If
-     * this was the first pass, num[i] would be stored in newNum[i + 0]. If this was the second pass, num[i] would be
-     * stored in newNum[i + 1] and if this was the third pass, num[i] would be stored in newNum[i + 2]. The reason for
-     * the adding of +1 in the second pass and +2 in the third pass is because the dashes will be added after the first
-     * and second pass. i.e. First Pass newNum[1,2,3,-] Second Pass: newNum[1,2,3,-,4,5,6,-] and finally after the
-     * Third pass, newNum = [1,2,3,-,4,5,6,-,7,8,9,0].
+     * Precondition: The records must be sorted by PERSON_ORDER and their numbers must not be in the persons TreeSet.
+     * Postcondition: If there are few new records compared to the size of the phone directory, each one is added in
+     * O(log n). Otherwise the records of the phone directory, which the TreeSet visits in order, are merged with the
+     * new records into one sorted list in O(n + m). The TreeSet is cleared and refilled from that list; since the list
+     * is passed to an empty TreeSet as a SortedSet with the same comparator, TreeSet builds the balanced tree in
+     * O(n + m) without comparing anything. The same TreeSet is kept, since the sessions of a PhoneDirectoryServer share
+     * it.
      *
-     * @param start where to start copying the num array into the newNum array.
-     * @param end where to end copying the num array into the newNum array.
-     * @param newNum the array that will store the formatted copy of the phone number i.e. xxx-xxx-xxxx.
-     * @param num the array that stores the copy of the currently submitted, unformatted number.
-     * @param pass the time that this method was called. Used to help with creating the dashes '-' in the number.
+     * @param sorted the new records, sorted by PERSON_ORDER.
      */
-    private void createCorrectPhoneFormat(int start, int end, char[] newNum, char[] num, int pass) {
-        // Invariant: start <= i < end
-        for (int i = start; i < end; i++) {
-            int j = 0;
+    private void addSortedRecords(ArrayList<Person> sorted) {
+        int n = this.persons.size();
+
+        if ((long) sorted.size() * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+            this.persons.addAll(sorted);
+            return;
+        }
 
-            if (pass == 2) {
-                j = 1;
-            } else if (pass == 3) {
-                j = 2;
+        ArrayList<Person> merged = new ArrayList<Person>(n + sorted.size());
+        Iterator<Person> existing = this.persons.iterator();
+        Person next = existing.hasNext() ? existing.next() : null;
+
+        // Invariant: merged holds, in order, every record smaller than next and smaller than sorted.get(i)
+        for (int i = 0; i < sorted.size(); i++) {
+            while (next != null && PERSON_ORDER.compare(next, sorted.get(i)) < 0) {
+                merged.add(next);
+                next = existing.hasNext() ? existing.next() : null;
             }
 
-            newNum[i + j] = num[i];
+            merged.add(sorted.get(i));
         }
 
-        if (pass == 1) {
-            newNum[end] = '-';
-        } else if (pass == 2) {
-            newNum[end+1] = '-';
+        while (next != null) {
+            merged.add(next);
+            next = existing.hasNext() ? existing.next() : null;
         }
+
+        this.persons.clear();
+        this.persons.addAll(new SortedListView(merged));
     }
 
     /**
-     * Selects a record based on the first name, last name and phone number.
+     * Refuses to import or export in a session of the PhoneDirectoryServer.
      *
-     * Precondition: Must have at least one entry in the phone directory.
-     * Postcondition: Prompts the user to enter the first name and last name. Capitalizes the first and last name.
-     * Enters a while loop and prompts the user to enter a phone number. Creates the correct number format:
-     * xxx-xxx-xxxx. Checks to see if the number is of valid length and of valid format. If not, the user can try
-     * entering the number again or enter 'q' to quit. If the number is of correct format, the loop terminates. A new
-     * Person object is created and passed to the getIndexOfPerson() method to attempt to find the person's location
-     * in the persons Linked List. If there are no matches, the method recursively calls itself to try again.
-     * Otherwise, if there are matches, the record is selected and the current record is displayed. If the method is
-     * called without having at least one record in the phone directory, a no records found message is displayed and
-     * the method execution is terminated.
+     * Precondition: Must be called by importRecords() and exportRecords() after the file name is read.
+     * Postcondition: Displays that the command is not available and returns true if this is a session; the clients
+     * are not authenticated, so they must not name files on the server. Returns false otherwise.
+     *
+     * @return boolean
      */
-    private void selectRecord() {
-        if (persons.size() == 0) {
-            System.out.println("No current record. You must add at least one record.");
-            return;
+    private boolean refuseFileAccess() {
+        if (!this.session) {
+            return false;
         }
 
-        showAllRecords();
+        out.println("Import and export are not available to clients of the phone directory server.");
+        return true;
+    }
 
-        System.out.print("Enter first name: ");
-        String first = input.next();
-        String s1 = first.substring(0, 1).toUpperCase();
-        first = s1 + first.substring(1);
+    /**
+     * Exports every record to a CSV file.
+     *
+     * Precondition: Must select "e" from the available options.
+     * Postcondition: Prompts the user for the file name. Writes one line per record, in the order of the phone
+     * directory, as first name, last name and phone number separated by commas. The lines are streamed through a
+     * buffered NIO writer, so no copy of the directory is made. Names that contain a comma or a double quote are
+     * quoted. The file can be read back with importRecords(). The read lock is held while the file is written. A
+     * session of the PhoneDirectoryServer reads the file name and refuses, since its client could otherwise overwrite
+     * any file that the server can.
+     */
+    private void exportRecords() {
+        prompt("Enter the CSV file to export to: ");
+        String fileName = input.next();
 
-        System.out.print("Enter last name: ");
-        String last = input.next();
-        s1 = last.substring(0,1).toUpperCase();
-        last = s1 + last.substring(1);
+        if (refuseFileAccess()) {
+            return;
+        }
 
-        boolean isNumberCorrect = false;
-        String phoneNumber = "";
+        int count;
+        this.lock.readLock().lock();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            for (Person individual: this.persons) {
+                writer.write(csvField(individual.getFirstName()));
+                writer.write(',');
+                writer.write(csvField(individual.getLastName()));
+                writer.write(',');
+                writer.write(individual.getPhoneNumber());
+                writer.newLine();
+            }
 
-        while (!isNumberCorrect) {
-            System.out.print("Enter phone number: ");
-            phoneNumber = input.next();
+            count = this.persons.size();
+        } catch (IOException e) {
+            out.println("The file could not be written: " + e.getMessage());
+            return;
+        } finally {
+            this.lock.readLock().unlock();
+        }
 
-            if (phoneNumber.equals("q")) {
-                System.exit(-1);
-            }
+        out.println("Exported " + count + " records.");
+    }
 
-            phoneNumber = formatNumber(phoneNumber);
+    /**
+     * Splits a CSV line into a first name, last name and phone number.
+     *
+     * Precondition: Must pass a line of a CSV file.
+     * Postcondition: Reads the line once. A field that starts with a double quote ends at the next double quote that
+     * is not doubled; a doubled double quote inside it stands for one double quote. Unquoted fields are trimmed. If the
+     * line doesn't have exactly three fields, null is returned.
+     *
+     * @param line the line to split.
+     * @return String[] the three fields, or null.
+     */
+    static String[] splitCsvLine(String line) {
+        String[] fields = new String[3];
+        int field = 0;
+        int i = 0;
+
+        // Invariant: fields[0] through fields[field - 1] hold the fields before position i
+        while (field < 3) {
+            StringBuilder value = new StringBuilder();
+
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+
+                while (i < line.length() && (line.charAt(i) != '"' ||
+                        (i + 1 < line.length() && line.charAt(i + 1) == '"'))) {
+                    if (line.charAt(i) == '"') {
+                        i++;
+                    }
+
+                    value.append(line.charAt(i));
+                    i++;
+                }
 
-            //Validates all North American Phone standards
-            //i.e. 123456789 OR 123-456-7890 OR 123.456.7890 OR 123 456 7890 OR (123) 456 7890
-            String regex = "^\\(?([0-9]{3})\\)?[-.\\s]?([0-9]{3})[-.\\s]?([0-9]{4})$";
+                if (i == line.length()) {
+                    return null;
+                }
 
-            if (phoneNumber.length() != 12 || !phoneNumber.matches(regex)) {
-                System.out.println("Incorrect Number entered. Try again.");
-                System.out.println("You may enter 'q' to quit or try again.");
+                i++;
+                fields[field] = value.toString();
             } else {
-                isNumberCorrect = true;
+                while (i < line.length() && line.charAt(i) != ',') {
+                    value.append(line.charAt(i));
+                    i++;
+                }
+
+                fields[field] = value.toString().trim();
             }
-        }
 
-        int indexOfPerson = getIndexOfPerson( new Person(first, last, phoneNumber) );
+            field++;
 
-        if (indexOfPerson == -1) {
-            System.out.println("No matches. Try again.");
-            selectRecord();
-        }
+            if (i == line.length()) {
+                break;
+            }
 
-        if (indexOfPerson >= 0) {
-            this.currentRecord = indexOfPerson;
-            System.out.println("Record successfully selected.");
-            displayCurrentRecord();
+            if (line.charAt(i) != ',') {
+                return null;
+            }
+
+            i++;
         }
 
+        return field == 3 && i == line.length() ? fields : null;
     }
 
     /**
-     * Returns the location of the Person object within the persons Linked List.
-     *
-     * Precondition: Must supply an argument of type Person.
-     * Postcondition: Concatenates the first name, last name and phone number of the Person. Compares the concatenated
-     * String to a Person within the persons Linked List. Each one of the individuals receives the same concatenation
-     * in order to compare the terms. If a match is found, the position of the Person object is returned; if no match
-     * is found, a -1 is returned.
+     * Quotes a CSV field if it contains a comma or a double quote.
      *
-     * @param person the Person Object that contains first name, last name and phone number instance variables.
-     * @return int
+     * @param value the field to write.
+     * @return String the field as it should appear in the CSV file.
      */
-    private int getIndexOfPerson(Person person) {
-        String currentPerson = person.getFirstName() + " " + person.getLastName() + " " + person.getPhoneNumber();
-
-        // Invariant: 0 <= i < persons.size()
-        for (int i = 0; i < persons.size(); i++) {
-            String compareToPerson = persons.get(i).getFirstName() + " " +
-                    persons.get(i).getLastName() + " " +
-                    persons.get(i).getPhoneNumber();
-
-            if (currentPerson.toLowerCase().compareTo( compareToPerson.toLowerCase() ) == 0) {
-                return i;
-            }
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
         }
 
-        return -1;
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 
     /**
-     * Returns the index of where the Person object should be inserted in order in the persons Linked List.
+     * Stores a record that was read back from disk.
      *
-     * Precondition: Must provide a Person object containing a first name, last name and phone number
-     * instance variables.
-     * Postcondition: Creates a currentPerson String (i.e. Dino Cajic 444-222-3333). Cycles through the persons
-     * Linked List. It compares the current record with each record in the phone directory. If the current record is
-     * lexicographically smaller, the currentRecord data field is set to that index and the loop abandoned. Otherwise,
-     * if the loop reaches the end and the person's information is lexicographically larger than the other Person
-     * entries in the phone directory, the currentRecord data field is assigned the value of the size of the persons
-     * Linked List i.e. the last entry + 1. It also checks to see if the size of the list is empty. If it is, it's
-     * automatically set to 0. This was implemented to make sure that during the deletion of the last name in the
-     * entry, when currentRecord is set to -1 that it changes it back to zero when adding a new record.
+     * Precondition: Called by the PhoneDirectoryLog while the directory is loaded.
+     * Postcondition: Removes the record that has the phone number, if there is one, and adds a record with the first
+     * name, last name and phone number to the persons TreeSet and the phone index.
      *
-     * @param current the Person object that needs to be inserted into the persons Linked List.
+     * @param phone the phone number packed into a long.
+     * @param first the first name.
+     * @param last the last name.
      */
-    private void getIndexOfInsertion(Person current) {
-        String currentPerson = current.getLastName() + " " + current.getFirstName() + " " + current.getPhoneNumber();
+    private void restoreRecord(long phone, String first, String last) {
+        removeRecord(phone);
+
+        Person individual = new Person(first, last, unpackPhoneNumber(phone));
+        this.persons.add(individual);
+        this.search.add(individual);
+        this.phoneIndex.put(phone, individual);
+        this.areaCodeIndex.put(phone, individual);
+    }
 
-        if (persons.size() == 0) {
-            this.currentRecord = 0;
-            return;
+    /**
+     * Removes the record that has a phone number.
+     *
+     * Precondition: Called by the PhoneDirectoryLog while the directory is loaded.
+     * Postcondition: If a record has the phone number, it's removed from the persons TreeSet and the phone index.
+     *
+     * @param phone the phone number packed into a long.
+     */
+    private void removeRecord(long phone) {
+        Person individual = this.phoneIndex.get(phone);
+
+        if (individual != null) {
+            this.persons.remove(individual);
+            this.search.remove(individual);
+            this.phoneIndex.remove(phone);
+            this.areaCodeIndex.remove(phone);
         }
+    }
 
-        // Invariant: 0 <= i < persons.size()
-        for (int i = 0; i < persons.size(); i++) {
-            String compareToPerson = persons.get(i).getLastName() + " " +
-                    persons.get(i).getFirstName() + " " +
-                    persons.get(i).getPhoneNumber();
+    /**
+     * Appends a record to the log, if the directory is stored on disk.
+     *
+     * Precondition: The record must already be in the persons TreeSet.
+     * Postcondition: The record is on disk, and a snapshot is written if the log has grown as large as the
+     * directory. If the log can't be written, the user is told that the change was not saved.
+     *
+     * @param individual the record that was added or changed.
+     */
+    private void logPut(Person individual) {
+        if (this.log == null) {
+            return;
+        }
 
-            if (currentPerson.toLowerCase().compareTo( compareToPerson.toLowerCase() ) < 0) {
-                this.currentRecord = i;
-                return;
+        try {
+            this.log.put(packPhoneNumber(individual.getPhoneNumber()), individual.getFirstName(),
+                    individual.getLastName());
+            this.log.compactIfNeeded(this.persons, this.persons.size());
+        } catch (IOException e) {
+            out.println("The change could not be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the removal of a record to the log, if the directory is stored on disk.
+     *
+     * Precondition: The record must already be removed from the persons TreeSet.
+     * Postcondition: The removal is on disk. If the log can't be written, the user is told that the change was not
+     * saved.
+     *
+     * @param phone the phone number of the removed record, packed into a long.
+     */
+    private void logDelete(long phone) {
+        if (this.log == null) {
+            return;
+        }
+
+        try {
+            this.log.delete(phone);
+        } catch (IOException e) {
+            out.println("The change could not be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Packs a formatted phone number into a long.
+     *
+     * Precondition: Must pass a phone number of type string.
+     * Postcondition: Reads the 10 digits of a number in the format xxx-xxx-xxxx as a decimal number without creating
+     * any objects, i.e. 444-222-3333 becomes 4442223333. If the number is not in that format, -1 is returned.
+     *
+     * @param phoneNumber the phone number in the format xxx-xxx-xxxx.
+     * @return long
+     */
+    static long packPhoneNumber(String phoneNumber) {
+        if (phoneNumber.length() != 12 || phoneNumber.charAt(3) != '-' || phoneNumber.charAt(7) != '-') {
+            return -1;
+        }
+
+        long key = 0;
+
+        // Invariant: key holds the digits before position i
+        for (int i = 0; i < 12; i++) {
+            if (i == 3 || i == 7) {
+                continue;
+            }
+
+            char c = phoneNumber.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            key = key * 10 + (c - '0');
+        }
+
+        return key;
+    }
+
+    /**
+     * Formats a phone number packed by packPhoneNumber() back into the format xxx-xxx-xxxx.
+     *
+     * Precondition: Must pass a number between 0 and 9999999999.
+     * Postcondition: Writes the 10 digits from the last to the first into a char array, skipping the dashes.
+     *
+     * @param phone the phone number packed into a long.
+     * @return String
+     */
+    static String unpackPhoneNumber(long phone) {
+        char[] number = new char[12];
+        number[3] = '-';
+        number[7] = '-';
+
+        // Invariant: the digits after position i have been written
+        for (int i = 11; i >= 0; i--) {
+            if (i == 3 || i == 7) {
+                continue;
+            }
+
+            number[i] = (char) ('0' + phone % 10);
+            phone /= 10;
+        }
+
+        return new String(number);
+    }
+
+    /**
+     * Adds a new entry to the phone directory.
+     *
+     * Precondition: Must select "n" from the available options.
+     * Postcondition: Prompts the user for the first name, last name and phone number. Capitalizes the first and last
+     * names. Cycles through a while loop to make sure that the phone number entered does not match a phone number
+     * already in the phone directory. Within the loop, it prompts the user to enter a phone number. The number is read
+     * by parsePhoneNumber(), which makes sure that it holds the 10 digits of a north american phone number. If it
+     * doesn't, a prompt is issued to the user to enter a new phone number or enter 'q' to quit the program. Otherwise
+     * addRecord() adds the record unless the number exists in the phone directory, in which case the user is asked
+     * again. Once the record is added, the isNumberCorrect variable is set to true so that the loop may terminate. The
+     * new record becomes the current record and is displayed.
+     */
+    private void addNewRecord() {
+        prompt("Add first name: ");
+        String first = input.next();
+        String s1 = first.substring(0, 1).toUpperCase();
+        first = s1 + first.substring(1);
+
+        prompt("Add last name: ");
+        String last = input.next();
+        s1 = last.substring(0,1).toUpperCase();
+        last = s1 + last.substring(1);
+
+        boolean isNumberCorrect = false;
+
+        while (!isNumberCorrect) {
+            prompt("Enter phone number: ");
+            String number = input.next();
+
+            if (number.equals("q")) {
+                quit();
+            }
+
+            long phone = parsePhoneNumber(number);
+
+            if (phone < 0) {
+                out.println("Incorrect Number entered. Try again.");
+                out.println("You may enter 'q' to quit or try again.");
+            } else if (!addRecord(first, last, phone)) {
+                out.println("Number already exists. Try again");
+                out.println("You may also enter 'q' to quit.");
             } else {
-                this.currentRecord = i+1;
+                isNumberCorrect = true;
             }
         }
+
+        displayCurrentRecord();
+    }
+
+    /**
+     * Adds a record unless its phone number exists.
+     *
+     * Precondition: Must pass the capitalized names and a phone number read by parsePhoneNumber().
+     * Postcondition: Holds the write lock while it checks the phone index and adds the record, so two sessions can't
+     * add the same number. The record, with the number in the format xxx-xxx-xxxx, is added to the persons TreeSet,
+     * which places it in order in O(log n), to the indexes and to the log, and becomes the current record.
+     *
+     * @param first the first name.
+     * @param last the last name.
+     * @param phone the phone number packed into a long.
+     * @return boolean true if the record was added; false if the number exists.
+     */
+    private boolean addRecord(String first, String last, long phone) {
+        this.lock.writeLock().lock();
+
+        try {
+            if (this.phoneIndex.get(phone) != null) {
+                return false;
+            }
+
+            Person individual = new Person(first, last, unpackPhoneNumber(phone));
+            this.persons.add(individual);
+            this.search.add(individual);
+            this.phoneIndex.put(phone, individual);
+            this.areaCodeIndex.put(phone, individual);
+            this.currentRecord = individual;
+            logPut(individual);
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Formats the phone number into the correct North American phone standard: i.e. xxx-xxx-xxxx.
+     *
+     * Precondition: Must pass a phoneNumber variable with 10 digits within it.
+     * Postcondition: Reads the digits of the phone number with parsePhoneNumber() and writes them in the format
+     * xxx-xxx-xxxx with unpackPhoneNumber(). If the phone number doesn't hold exactly 10 digits, it returns an empty
+     * String.
+     *
+     * @param phoneNumber the phone number that will be formatted to the xxx-xxx-xxxx standard.
+     * @return String
+     */
+    private String formatNumber(String phoneNumber) {
+        long phone = parsePhoneNumber(phoneNumber);
+        return phone < 0 ? "" : unpackPhoneNumber(phone);
+    }
+
+    /**
+     * Reads a phone number that the user typed into a long.
+     *
+     * Precondition: Must pass a phone number in any format, i.e. 1234567890 OR 123-456-7890 OR 123.456.7890 OR
+     * 123 456 7890 OR (123) 456 7890.
+     * Postcondition: Looks at each character once, skips everything that is not a digit from 0 to 9 and adds the
+     * digits to a decimal number, i.e. (444) 222-3333 becomes 4442223333. No regex is compiled and no object is
+     * created. If there are more or fewer than 10 digits, -1 is returned; the loop stops at the 11th digit. The number
+     * is the same one packPhoneNumber() returns for the formatted number, and unpackPhoneNumber() formats it.
+     *
+     * @param phoneNumber the phone number as the user typed it.
+     * @return long the 10 digits as a number, or -1.
+     */
+    static long parsePhoneNumber(CharSequence phoneNumber) {
+        long phone = 0;
+        int digits = 0;
+
+        // Invariant: phone holds the digits before position i and digits is the amount of them
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                if (++digits > 10) {
+                    return -1;
+                }
+
+                phone = phone * 10 + (c - '0');
+            }
+        }
+
+        return digits == 10 ? phone : -1;
+    }
+
+    /**
+     * Keeps only the digits of what the user typed.
+     *
+     * Precondition: Must pass the text that the user typed.
+     * Postcondition: Looks at each character once and copies the digits from 0 to 9 into a char array, i.e.
+     * (312) 555 becomes 312555. No regex is compiled. If every character is a digit, the text itself is returned.
+     *
+     * @param text the text as the user typed it.
+     * @return String the digits, in order.
+     */
+    static String digitsOf(String text) {
+        char[] digits = new char[text.length()];
+        int count = 0;
+
+        // Invariant: digits holds the count digits before position i
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c;
+            }
+        }
+
+        return count == text.length() ? text : new String(digits, 0, count);
+    }
+
+    /**
+     * Selects a record based on the first name, last name and phone number.
+     *
+     * Precondition: Must have at least one entry in the phone directory.
+     * Postcondition: Prompts the user to enter the first name and last name. Capitalizes the first and last name.
+     * Enters a while loop and prompts the user to enter a phone number. Creates the correct number format: xxx-xxx-xxxx
+     * with formatNumber(), which returns an empty String if the number doesn't hold 10 digits. If it's empty, the user
+     * can try entering the number again or enter 'q' to quit. If the number is of correct format, the loop terminates.
+     * A new Person object is created and passed to the findPerson() method to attempt to find the person's record in
+     * the persons TreeSet. If there are no matches, the method recursively calls itself to try again. Otherwise, if
+     * there are matches, the record is selected and the current record is displayed. If the method is called without
+     * having at least one record in the phone directory, a no records found message is displayed and the method
+     * execution is terminated.
+     */
+    private void selectRecord() {
+        if (!hasRecords()) {
+            out.println("No current record. You must add at least one record.");
+            return;
+        }
+
+        showAllRecords();
+
+        prompt("Enter first name: ");
+        String first = input.next();
+        String s1 = first.substring(0, 1).toUpperCase();
+        first = s1 + first.substring(1);
+
+        prompt("Enter last name: ");
+        String last = input.next();
+        s1 = last.substring(0,1).toUpperCase();
+        last = s1 + last.substring(1);
+
+        boolean isNumberCorrect = false;
+        String phoneNumber = "";
+
+        while (!isNumberCorrect) {
+            prompt("Enter phone number: ");
+            phoneNumber = input.next();
+
+            if (phoneNumber.equals("q")) {
+                quit();
+            }
+
+            phoneNumber = formatNumber(phoneNumber);
+
+            if (phoneNumber.isEmpty()) {
+                out.println("Incorrect Number entered. Try again.");
+                out.println("You may enter 'q' to quit or try again.");
+            } else {
+                isNumberCorrect = true;
+            }
+        }
+
+        Person match;
+        this.lock.readLock().lock();
+
+        try {
+            match = findPerson( new Person(first, last, phoneNumber) );
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        if (match == null) {
+            out.println("No matches. Try again.");
+            selectRecord();
+        }
+
+        if (match != null) {
+            this.currentRecord = match;
+            out.println("Record successfully selected.");
+            displayCurrentRecord();
+        }
+
+    }
+
+    /**
+     * Searches for records by name and lets the user select one of them.
+     *
+     * Precondition: Must select "m" from the available options.
+     * Postcondition: Prompts the user for one or two words, i.e. "caj" or "cajic d". Displays up to SEARCH_RESULTS
+     * records: first the records whose names start with the words, then, if there are fewer than SEARCH_RESULTS of
+     * those, the records whose names are most similar to the words, so that misspelled names are still found. If no
+     * record matches, a no matches message is displayed. The user is always asked for a selection, so a script or a
+     * client of the PhoneDirectoryServer can send its answer with the query. The user may enter the number of a
+     * record to make it the current record, or 0 to keep the current record. An answer that is not a number is read
+     * and rejected, so it is never run as a command.
+     */
+    private void searchRecords() {
+        prompt("Enter a name or the start of a name: ");
+        String query = input.nextLine().trim();
+
+        if (query.isEmpty()) {
+            query = input.nextLine().trim();
+        }
+
+        ArrayList<Person> matches;
+        this.lock.readLock().lock();
+
+        try {
+            matches = this.search.prefixSearch(query, SEARCH_RESULTS);
+
+            if (matches.size() < SEARCH_RESULTS) {
+                for (Person individual: this.search.fuzzySearch(query, SEARCH_RESULTS)) {
+                    if (matches.size() < SEARCH_RESULTS && !matches.contains(individual)) {
+                        matches.add(individual);
+                    }
+                }
+            }
+
+            if (matches.isEmpty()) {
+                out.println("No matches.");
+            }
+
+            // Invariant: the records before i have been displayed
+            for (int i = 0; i < matches.size(); i++) {
+                Person individual = matches.get(i);
+                out.println((i + 1) + ". " + individual.getFirstName() + " " + individual.getLastName() + " " +
+                        individual.getPhoneNumber());
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        prompt("Enter the number of the record to select or 0 to cancel: ");
+        String answer = input.next();
+        int choice;
+
+        try {
+            choice = Integer.parseInt(answer);
+        } catch (NumberFormatException e) {
+            out.println("Incorrect number entered. No record was selected.");
+            return;
+        }
+
+        if (choice >= 1 && choice <= matches.size()) {
+            this.currentRecord = matches.get(choice - 1);
+            out.println("Record successfully selected.");
+            displayCurrentRecord();
+        }
+    }
+
+    /**
+     * Looks up records by phone number, area code or exchange.
+     *
+     * Precondition: Must select "r" from the available options.
+     * Postcondition: Prompts the user for a number and keeps its digits with digitsOf(). With 10 digits, the record
+     * that has the phone number is found in the phone index in O(1), displayed and made the current record. With 3
+     * digits, i.e. 312, every record in the area code is displayed; with 6 digits, i.e. 312-555, every record in the
+     * exchange is displayed. Those are read from the area code index in order of their phone numbers, and only the
+     * partition of the area code is looked at. Any other amount of digits, or no matching record, displays a message.
+     * The read lock is held while the records are looked up and displayed.
+     */
+    private void reverseLookup() {
+        prompt("Enter a phone number, area code or exchange: ");
+        String digits = digitsOf(input.next());
+        this.lock.readLock().lock();
+
+        try {
+            lookUp(digits);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Displays the records of a phone number, area code or exchange.
+     *
+     * Precondition: Must hold the read lock. Must pass the digits that the user entered.
+     * Postcondition: Displays the records as described in reverseLookup().
+     *
+     * @param digits the digits of a phone number, area code or exchange.
+     */
+    private void lookUp(String digits) {
+        if (digits.length() == 10) {
+            Person individual = this.phoneIndex.get(Long.parseLong(digits));
+
+            if (individual == null) {
+                out.println("No record has that phone number.");
+                return;
+            }
+
+            this.currentRecord = individual;
+            displayCurrentRecord();
+            return;
+        }
+
+        Collection<Person> matches;
+
+        if (digits.length() == 3) {
+            matches = this.areaCodeIndex.areaCode(Integer.parseInt(digits));
+        } else if (digits.length() == 6) {
+            matches = this.areaCodeIndex.exchange(Integer.parseInt(digits.substring(0, 3)),
+                    Integer.parseInt(digits.substring(3)));
+        } else {
+            out.println("Enter 10 digits for a phone number, 3 for an area code or 6 for an exchange.");
+            return;
+        }
+
+        for (Person individual: matches) {
+            out.println(individual.getFirstName() + " " + individual.getLastName() + " " +
+                    individual.getPhoneNumber());
+        }
+
+        out.println(matches.size() + " records found.");
+    }
+
+    /**
+     * Returns the record in the phone directory that matches a Person.
+     *
+     * Precondition: Must supply an argument of type Person.
+     * Postcondition: Searches the persons TreeSet in O(log n) for the first record that is not ordered before the
+     * Person. If that record has the same first name, last name and phone number, ignoring case, it's returned;
+     * otherwise, null is returned.
+     *
+     * @param person the Person Object that contains first name, last name and phone number instance variables.
+     * @return Person
+     */
+    private Person findPerson(Person person) {
+        Person match = persons.ceiling(person);
+
+        if (match != null && PERSON_ORDER.compare(match, person) == 0) {
+            return match;
+        }
+
+        return null;
+    }
+
+    /**
+     * A read only SortedSet view of a list that is already sorted by PERSON_ORDER. Passing it to the TreeSet
+     * constructor lets the TreeSet build its tree straight from the sorted elements in linear time. The sub sets are
+     * views of ranges of the same list, whose bounds are found by binary search, and contains() is a binary search.
+     */
+    private static class SortedListView extends AbstractSet<Person> implements SortedSet<Person> {
+
+        /** The records, sorted by PERSON_ORDER */
+        private final List<Person> sorted;
+
+        /**
+         * Creates the view.
+         * @param sorted the records, sorted by PERSON_ORDER.
+         */
+        SortedListView(List<Person> sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public Iterator<Person> iterator() {
+            return Collections.unmodifiableList(this.sorted).iterator();
+        }
+
+        @Override
+        public int size() {
+            return this.sorted.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Person && Collections.binarySearch(this.sorted, (Person) o, PERSON_ORDER) >= 0;
+        }
+
+        @Override
+        public Comparator<? super Person> comparator() {
+            return PERSON_ORDER;
+        }
+
+        @Override
+        public SortedSet<Person> subSet(Person fromElement, Person toElement) {
+            if (PERSON_ORDER.compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("fromElement is greater than toElement");
+            }
+
+            return new SortedListView(this.sorted.subList(indexOf(fromElement), indexOf(toElement)));
+        }
+
+        @Override
+        public SortedSet<Person> headSet(Person toElement) {
+            return new SortedListView(this.sorted.subList(0, indexOf(toElement)));
+        }
+
+        @Override
+        public SortedSet<Person> tailSet(Person fromElement) {
+            return new SortedListView(this.sorted.subList(indexOf(fromElement), this.sorted.size()));
+        }
+
+        @Override
+        public Person first() {
+            if (this.sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.sorted.get(0);
+        }
+
+        @Override
+        public Person last() {
+            if (this.sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            return this.sorted.get(this.sorted.size() - 1);
+        }
+
+        /**
+         * Returns the position of the first record that is not smaller than a record, in O(log n).
+         * @param person the record to look for.
+         * @return int the position of the record, or of the next larger one; size() if every record is smaller.
+         */
+        private int indexOf(Person person) {
+            int i = Collections.binarySearch(this.sorted, person, PERSON_ORDER);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    /**
+     * Partitions the records by the structure of a North American phone number, xxx-yyy-zzzz: the area code xxx picks
+     * one of 1000 partitions, and each partition is a TreeMap from the last 7 digits, yyyzzzz, to the record. The
+     * records of an area code are a whole partition, and the records of an exchange xxx-yyy are the range yyy0000 up
+     * to, not including, (yyy + 1)0000 of it, so a query never looks at the records of other area codes.
+     */
+    private static class AreaCodeIndex {
+
+        /** The amount of area codes, 000 through 999 */
+        private static final int AREA_CODES = 1000;
+
+        /** The amount of numbers in an area code; the last 7 digits */
+        private static final int NUMBERS_PER_AREA_CODE = 10000000;
+
+        /** The amount of numbers in an exchange; the last 4 digits */
+        private static final int NUMBERS_PER_EXCHANGE = 10000;
+
+        /** The partition of each area code; null until a record with the area code is added */
+        private final ArrayList<TreeMap<Integer, Person>> partitions =
+                new ArrayList<TreeMap<Integer, Person>>(Collections.nCopies(AREA_CODES, null));
+
+        /**
+         * Stores the record of a phone number.
+         * @param phone the phone number packed into a long.
+         * @param person the record that has the phone number.
+         */
+        void put(long phone, Person person) {
+            int areaCode = (int) (phone / NUMBERS_PER_AREA_CODE);
+            TreeMap<Integer, Person> partition = this.partitions.get(areaCode);
+
+            if (partition == null) {
+                partition = new TreeMap<Integer, Person>();
+                this.partitions.set(areaCode, partition);
+            }
+
+            partition.put((int) (phone % NUMBERS_PER_AREA_CODE), person);
+        }
+
+        /**
+         * Removes the record of a phone number.
+         * @param phone the phone number packed into a long.
+         */
+        void remove(long phone) {
+            TreeMap<Integer, Person> partition = this.partitions.get((int) (phone / NUMBERS_PER_AREA_CODE));
+
+            if (partition != null) {
+                partition.remove((int) (phone % NUMBERS_PER_AREA_CODE));
+            }
+        }
+
+        /**
+         * Returns the records of an area code in order of their phone numbers.
+         * @param areaCode the area code, 0 through 999.
+         * @return Collection a read only view of the partition.
+         */
+        Collection<Person> areaCode(int areaCode) {
+            TreeMap<Integer, Person> partition = this.partitions.get(areaCode);
+
+            if (partition == null) {
+                return Collections.<Person>emptyList();
+            }
+
+            return Collections.unmodifiableCollection(partition.values());
+        }
+
+        /**
+         * Returns the records of an exchange in order of their phone numbers.
+         * @param areaCode the area code, 0 through 999.
+         * @param exchange the exchange, 0 through 999.
+         * @return Collection a read only view of the range of the partition.
+         */
+        Collection<Person> exchange(int areaCode, int exchange) {
+            TreeMap<Integer, Person> partition = this.partitions.get(areaCode);
+
+            if (partition == null) {
+                return Collections.<Person>emptyList();
+            }
+
+            int from = exchange * NUMBERS_PER_EXCHANGE;
+            return Collections.unmodifiableCollection(partition.subMap(from, from + NUMBERS_PER_EXCHANGE).values());
+        }
+    }
+
+    /**
+     * An open addressing hash table from a phone number, packed into a long by packPhoneNumber(), to the record that
+     * has it. Collisions are resolved with linear probing and the table is kept at most half full. The keys are
+     * primitive longs, so a lookup creates no objects.
+     */
+    private static class PhoneIndex {
+
+        /** The packed phone numbers stored in the table */
+        private long[] keys = new long[16];
+
+        /** The record of the phone number stored in the same slot; null marks an empty slot */
+        private Person[] values = new Person[16];
+
+        /** The number of phone numbers stored in the table */
+        private int count;
+
+        /**
+         * Returns the record that has the phone number.
+         * @param key the packed phone number.
+         * @return Person the record, or null if no record has the phone number.
+         */
+        Person get(long key) {
+            int mask = this.keys.length - 1;
+
+            // Invariant: slot i is either empty, key, or a different phone number that collided
+            for (int i = hash(key) & mask; this.values[i] != null; i = (i + 1) & mask) {
+                if (this.keys[i] == key) {
+                    return this.values[i];
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Stores the record of the phone number, replacing the record that had it before.
+         * @param key the packed phone number.
+         * @param value the record that has the phone number.
+         */
+        void put(long key, Person value) {
+            if ((this.count + 1) * 2 > this.keys.length) {
+                grow();
+            }
+
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+
+            // Invariant: slot i is either empty, key, or a different phone number that collided
+            while (this.values[i] != null) {
+                if (this.keys[i] == key) {
+                    this.values[i] = value;
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            this.keys[i] = key;
+            this.values[i] = value;
+            this.count++;
+        }
+
+        /**
+         * Removes the phone number from the table. The phone numbers after it in the same run of slots are moved
+         * back into the hole if their home slot allows it, so that every lookup still finds them without tombstones.
+         * @param key the packed phone number.
+         */
+        void remove(long key) {
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+
+            while (this.values[i] != null && this.keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+
+            if (this.values[i] == null) {
+                return;
+            }
+
+            this.count--;
+
+            // Invariant: slot i is the hole and every phone number before slot j can still be found
+            for (int j = (i + 1) & mask; this.values[j] != null; j = (j + 1) & mask) {
+                int home = hash(this.keys[j]) & mask;
+
+                // A phone number whose home slot is after the hole, up to j, has to stay where it is
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    this.keys[i] = this.keys[j];
+                    this.values[i] = this.values[j];
+                    i = j;
+                }
+            }
+
+            this.values[i] = null;
+        }
+
+        /**
+         * Doubles the table and places every stored phone number in its new slot.
+         */
+        private void grow() {
+            long[] oldKeys = this.keys;
+            Person[] oldValues = this.values;
+            int mask = oldKeys.length * 2 - 1;
+
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new Person[oldKeys.length * 2];
+
+            // Invariant: 0 <= j < oldKeys.length
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) {
+                    continue;
+                }
+
+                int i = hash(oldKeys[j]) & mask;
+
+                while (this.values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+
+                this.keys[i] = oldKeys[j];
+                this.values[i] = oldValues[j];
+            }
+        }
+
+        /**
+         * Mixes the bits of a packed phone number so that numbers that differ only in the last digits spread over the
+         * whole table.
+         * @param key the packed phone number.
+         * @return int the mixed hash code.
+         */
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
     }
 
     /**
@@ -630,6 +1880,9 @@ public class phonedir {
         /** An individual's phone number in the format xxx-xxx-xxxx. */
         private String phoneNumber;
 
+        /** The last name, first name and phone number in lower case, separated by '\0'; ordered by PERSON_ORDER. */
+        private String sortKey;
+
         /**
          * Sets the firstName, lastName and phoneNumber data fields with the provided constructor arguments.
          *
@@ -638,9 +1891,10 @@ public class phonedir {
          * @param phone Phone Number of an individual.
          */
         public Person(String first, String last, String phone) {
-            setFirstName(first);
-            setLastName(last);
-            setPhoneNumber(phone);
+            firstName = first;
+            lastName = last;
+            phoneNumber = phone;
+            updateSortKey();
         }
 
         /**
@@ -649,6 +1903,7 @@ public class phonedir {
          */
         public void setFirstName(String first) {
             firstName = first;
+            updateSortKey();
         }
 
         /**
@@ -657,6 +1912,7 @@ public class phonedir {
          */
         public void setLastName(String last) {
             lastName = last;
+            updateSortKey();
         }
 
         /**
@@ -665,6 +1921,25 @@ public class phonedir {
          */
         public void setPhoneNumber(String number) {
             phoneNumber = number;
+            updateSortKey();
+        }
+
+        /**
+         * Returns the sort key of the person. Two people with the same sort key have the same name and phone number,
+         * ignoring case.
+         * @return String
+         */
+        public String getSortKey() {
+            return sortKey;
+        }
+
+        /**
+         * Builds the sort key once per change instead of once per comparison. The fields are separated by '\0', which
+         * is smaller than any character in a name, so a shorter last name sorts before a longer one that starts with
+         * it, i.e. "Li" before "Lim".
+         */
+        private void updateSortKey() {
+            sortKey = (lastName + '\0' + firstName + '\0' + phoneNumber).toLowerCase(Locale.ROOT);
         }
 
         /**
@@ -691,4 +1966,14 @@ public class phonedir {
             return phoneNumber;
         }
     }
+
+    /**
+     * Thrown by quit() in a session of the PhoneDirectoryServer, so that 'q' ends only that session. Caught by
+     * start().
+     */
+    private static class SessionClosedException extends RuntimeException {
+
+        /** Serialization version */
+        private static final long serialVersionUID = 1L;
+    }
 }